@@ -150,7 +150,7 @@ public class DataReader {
         File stats = new File(outputDirectory + "computationStats.txt");
         FileWriter out;
 
-        int maxNodeAmountTotal = amountOfNodesMap.get("query") * amountOfNodesMap.get("transducer") * amountOfNodesMap.get("database");
+        long maxNodeAmountTotal = (long) amountOfNodesMap.get("query") * amountOfNodesMap.get("transducer") * amountOfNodesMap.get("database");
         Settings.setNumberOfMaxNodesPossible(maxNodeAmountTotal);
 
         try {
@@ -277,6 +277,9 @@ public class DataReader {
 
             dataProvider.databaseGraph.addDatabaseObjectEdge(source, target, label);
         }
+
+        // build the per-label forward and inverse index once, so the product construction only touches matching edges.
+        dataProvider.databaseGraph.buildLabelIndex();
     }
 
     /**
@@ -1,7 +1,10 @@
 package Database;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 // class for specifying the database in for of a graph. It consists of DatabaseNodes and DatabaseEdges.
@@ -11,17 +14,35 @@ public class DatabaseGraph {
 
     public Set<DatabaseNode> nodes;
 
+    // per-label index over all edges. it is built once after loading (see buildLabelIndex()) and dropped whenever an edge is added.
+    // edgesByLabel:   label -> every edge carrying that label
+    // forwardIndex:   label -> (source -> edges leaving source with that label)
+    // inverseIndex:   label -> (target -> edges entering target with that label)
+    private HashMap<String, ArrayList<DatabaseEdge>> edgesByLabel;
+    private HashMap<String, HashMap<DatabaseNode, ArrayList<DatabaseEdge>>> forwardIndex;
+    private HashMap<String, HashMap<DatabaseNode, ArrayList<DatabaseEdge>>> inverseIndex;
+    private ArrayList<DatabaseNode> nodesWithOutgoingEdges;
+
     public DatabaseGraph() {
         nodes = new HashSet<>();
     }
 
     public void addDatabaseObjectNode(DatabaseNode... n) {
-        nodes.addAll(Arrays.asList(n));
+        for (DatabaseNode node : n) {
+            register(node);
+        }
+    }
+
+    // adds the node and hands out its index (the position in the order the nodes were added).
+    private void register(DatabaseNode node) {
+        if (nodes.add(node)) {
+            node.index = nodes.size() - 1;
+        }
     }
 
     public void addDatabaseObjectEdge(DatabaseNode source, DatabaseNode target, String label) {
-        nodes.add(source);
-        nodes.add(target);
+        register(source);
+        register(target);
 
         // don't add duplicate edges!
 
@@ -31,6 +52,93 @@ public class DatabaseGraph {
             }
         }
         source.edges.add(new DatabaseEdge(source, target, label));
+
+        // the label index is outdated now.
+        edgesByLabel = null;
+    }
+
+    /**
+     * builds the per-label index with forward (source -> target) and inverse (target -> source) adjacency.
+     * the DataReader calls this once the whole database is loaded. If edges are added afterwards, the index is rebuilt on the next lookup.
+     */
+    public void buildLabelIndex() {
+        edgesByLabel = new HashMap<>();
+        forwardIndex = new HashMap<>();
+        inverseIndex = new HashMap<>();
+        nodesWithOutgoingEdges = new ArrayList<>();
+
+        for (DatabaseNode node : nodes) {
+            if (!node.edges.isEmpty()) {
+                nodesWithOutgoingEdges.add(node);
+            }
+            for (DatabaseEdge edge : node.edges) {
+                edgesByLabel.computeIfAbsent(edge.label, k -> new ArrayList<>()).add(edge);
+                forwardIndex.computeIfAbsent(edge.label, k -> new HashMap<>()).computeIfAbsent(edge.source, k -> new ArrayList<>()).add(edge);
+                inverseIndex.computeIfAbsent(edge.label, k -> new HashMap<>()).computeIfAbsent(edge.target, k -> new ArrayList<>()).add(edge);
+            }
+        }
+    }
+
+    /**
+     * @param label the (lowercase) label
+     * @return all edges carrying this label
+     */
+    public List<DatabaseEdge> getEdgesWithLabel(String label) {
+        if (edgesByLabel == null) {
+            buildLabelIndex();
+        }
+        List<DatabaseEdge> edges = edgesByLabel.get(label);
+        if (edges == null) {
+            return Collections.emptyList();
+        }
+        return edges;
+    }
+
+    /**
+     * forward adjacency.
+     *
+     * @param source the node we start in
+     * @param label  the (lowercase) label
+     * @return all edges (source) -[label]-> (x)
+     */
+    public List<DatabaseEdge> getOutgoingEdgesWithLabel(DatabaseNode source, String label) {
+        return lookUp(true, source, label);
+    }
+
+    /**
+     * inverse adjacency.
+     *
+     * @param target the node the edges point to
+     * @param label  the (lowercase) label
+     * @return all edges (x) -[label]-> (target)
+     */
+    public List<DatabaseEdge> getIncomingEdgesWithLabel(DatabaseNode target, String label) {
+        return lookUp(false, target, label);
+    }
+
+    /**
+     * @return every node that has at least one outgoing edge.
+     */
+    public List<DatabaseNode> getNodesWithOutgoingEdges() {
+        if (edgesByLabel == null) {
+            buildLabelIndex();
+        }
+        return nodesWithOutgoingEdges;
+    }
+
+    private List<DatabaseEdge> lookUp(boolean forward, DatabaseNode node, String label) {
+        if (edgesByLabel == null) {
+            buildLabelIndex();
+        }
+        HashMap<DatabaseNode, ArrayList<DatabaseEdge>> adjacency = forward ? forwardIndex.get(label) : inverseIndex.get(label);
+        if (adjacency == null) {
+            return Collections.emptyList();
+        }
+        List<DatabaseEdge> edges = adjacency.get(node);
+        if (edges == null) {
+            return Collections.emptyList();
+        }
+        return edges;
     }
 
     // TODO: print isolated nodes. (same as in query/transducer!)
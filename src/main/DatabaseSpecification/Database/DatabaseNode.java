@@ -9,6 +9,9 @@ public class DatabaseNode {
     public String identifier;
     public LinkedList<DatabaseEdge> edges;
 
+    // position of the node in its graph (assigned when the node is added). used to encode productAutomaton states as numbers.
+    public int index = -1;
+
     public DatabaseNode(){
 
     }
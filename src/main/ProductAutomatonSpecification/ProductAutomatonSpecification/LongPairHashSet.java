@@ -0,0 +1,80 @@
+package ProductAutomatonSpecification;
+
+import java.util.Arrays;
+
+/**
+ * primitive open-addressing hash set of (long, long) pairs (linear probing).
+ * We use it for the duplicate check of the productAutomaton edges, an edge is packed into two numbers (see ProductAutomatonGraph.addEdgeKey()).
+ * <p>
+ * the first number of a pair has to be non-negative, -1 marks a free slot.
+ */
+public class LongPairHashSet {
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] firsts; // EMPTY marks a free slot
+    private long[] seconds;
+    private int size;
+    private int mask;
+
+    public LongPairHashSet() {
+        allocate(16);
+    }
+
+    private void allocate(int capacity) {
+        firsts = new long[capacity];
+        seconds = new long[capacity];
+        Arrays.fill(firsts, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * adds the pair (first, second).
+     *
+     * @param first  the first number, has to be >= 0
+     * @param second the second number
+     * @return true if the pair was not contained yet
+     */
+    public boolean add(long first, long second) {
+        if (first < 0) {
+            throw new IllegalArgumentException("negative key: " + first);
+        }
+        int slot = slot(first, second);
+        while (firsts[slot] != EMPTY) {
+            if (firsts[slot] == first && seconds[slot] == second) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        firsts[slot] = first;
+        seconds[slot] = second;
+        size++;
+        if (size > LOAD_FACTOR * firsts.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] oldFirsts = firsts;
+        long[] oldSeconds = seconds;
+        allocate(firsts.length << 1);
+        size = 0;
+        for (int i = 0; i < oldFirsts.length; i++) {
+            if (oldFirsts[i] != EMPTY) {
+                add(oldFirsts[i], oldSeconds[i]);
+            }
+        }
+    }
+
+    // fibonacci hashing, spreads consecutive keys over the whole table
+    private int slot(long first, long second) {
+        long hash = (first * 31 + second) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
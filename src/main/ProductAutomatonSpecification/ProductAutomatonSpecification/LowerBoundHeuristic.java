@@ -0,0 +1,130 @@
+package ProductAutomatonSpecification;
+
+import Algorithms.IndexedDaryHeap;
+import Query.QueryEdge;
+import Query.QueryGraph;
+import Query.QueryNode;
+import Transducer.TransducerEdge;
+import Transducer.TransducerGraph;
+import Transducer.TransducerNode;
+
+import java.util.Arrays;
+
+/**
+ * lower bound for the remaining cost of a productAutomaton state (q, t, d), used as heuristic of the A* searches (see Settings.aStar).
+ * <br/> --- <br/>
+ * every cost of the productAutomaton comes from a transducer edge and the database only decides whether an edge exists.
+ * if we drop the database we get the (small) automaton query x transducer: every productAutomaton edge (q, t, d) -> (q', t', d') with cost c
+ * becomes the edge (q, t) -> (q', t') with cost c. a path to a final state (q, t final) in the productAutomaton is a path to a final pair there.
+ * so the cheapest cost from (q, t) to a final pair is a lower bound for every state (q, t, d).
+ * the bound is consistent (h(u) <= c + h(v) for every edge u -> v), the A* searches never have to settle a state twice.
+ * <br/> --- <br/>
+ * the bounds of all pairs are computed once by a dijkstra over the reversed pair automaton starting in all final pairs.
+ * infinity means that no final state can be reached at all.
+ */
+public class LowerBoundHeuristic {
+
+    private final int numberOfTransducerNodes;
+
+    // lowerBounds[queryIdx * |T| + transducerIdx]
+    private final double[] lowerBounds;
+
+    LowerBoundHeuristic(QueryGraph queryGraph, TransducerGraph transducerGraph) {
+        numberOfTransducerNodes = transducerGraph.nodes.size();
+        int numberOfPairs = queryGraph.nodes.size() * numberOfTransducerNodes;
+
+        // edges of the pair automaton, the same combinations the productAutomatonConstructor builds (see construct() part (I) - (IV)).
+        int numberOfEdges = 0;
+        int[] sources = new int[16];
+        int[] targets = new int[16];
+        double[] costs = new double[16];
+        for (QueryNode queryNode : queryGraph.nodes) {
+            for (QueryEdge queryEdge : queryNode.edges) {
+                for (TransducerEdge transducerEdge : transducerGraph.getEdgesWithIncomingString(queryEdge.label)) {
+                    if (numberOfEdges == sources.length) {
+                        sources = Arrays.copyOf(sources, numberOfEdges * 2);
+                        targets = Arrays.copyOf(targets, numberOfEdges * 2);
+                        costs = Arrays.copyOf(costs, numberOfEdges * 2);
+                    }
+                    sources[numberOfEdges] = pair(queryNode, transducerEdge.source);
+                    targets[numberOfEdges] = pair(queryEdge.target, transducerEdge.target);
+                    costs[numberOfEdges] = transducerEdge.cost;
+                    numberOfEdges++;
+                }
+            }
+            // incoming epsilon edges: the query pauses in its final state
+            if (queryNode.isFinalState() && !queryNode.edges.isEmpty()) {
+                for (TransducerEdge transducerEdge : transducerGraph.getEpsilonIncomingEdges()) {
+                    if (numberOfEdges == sources.length) {
+                        sources = Arrays.copyOf(sources, numberOfEdges * 2);
+                        targets = Arrays.copyOf(targets, numberOfEdges * 2);
+                        costs = Arrays.copyOf(costs, numberOfEdges * 2);
+                    }
+                    sources[numberOfEdges] = pair(queryNode, transducerEdge.source);
+                    targets[numberOfEdges] = pair(queryNode, transducerEdge.target);
+                    costs[numberOfEdges] = transducerEdge.cost;
+                    numberOfEdges++;
+                }
+            }
+        }
+
+        // reversed edges in CSR form: the edges pointing to pair i are reverseEdges[reverseOffsets[i]], ..., reverseEdges[reverseOffsets[i + 1] - 1]
+        int[] reverseOffsets = new int[numberOfPairs + 1];
+        for (int e = 0; e < numberOfEdges; e++) {
+            reverseOffsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < numberOfPairs; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] reverseEdges = new int[numberOfEdges];
+        int[] position = Arrays.copyOf(reverseOffsets, numberOfPairs);
+        for (int e = 0; e < numberOfEdges; e++) {
+            reverseEdges[position[targets[e]]++] = e;
+        }
+
+        // dijkstra from all final pairs over the reversed edges
+        lowerBounds = new double[numberOfPairs];
+        Arrays.fill(lowerBounds, Double.POSITIVE_INFINITY);
+        boolean[] settled = new boolean[numberOfPairs];
+        IndexedDaryHeap queue = new IndexedDaryHeap(numberOfPairs);
+        for (QueryNode queryNode : queryGraph.nodes) {
+            for (TransducerNode transducerNode : transducerGraph.nodes) {
+                if (queryNode.isFinalState() && transducerNode.isFinalState()) {
+                    int pair = pair(queryNode, transducerNode);
+                    lowerBounds[pair] = 0.0;
+                    queue.insert(pair, 0.0);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            int pair = queue.poll();
+            settled[pair] = true;
+            for (int i = reverseOffsets[pair]; i < reverseOffsets[pair + 1]; i++) {
+                int e = reverseEdges[i];
+                int source = sources[e];
+                double newBound = lowerBounds[pair] + costs[e];
+                if (settled[source] || newBound >= lowerBounds[source]) {
+                    continue;
+                }
+                if (queue.contains(source)) {
+                    queue.decreaseKey(source, newBound);
+                } else {
+                    queue.insert(source, newBound);
+                }
+                lowerBounds[source] = newBound;
+            }
+        }
+    }
+
+    private int pair(QueryNode queryNode, TransducerNode transducerNode) {
+        return queryNode.index * numberOfTransducerNodes + transducerNode.index;
+    }
+
+    /**
+     * @param node a productAutomaton state (q, t, d)
+     * @return a lower bound for the cost of every path from node to a final state, infinity if there is no such path
+     */
+    public double getLowerBound(ProductAutomatonNode node) {
+        return lowerBounds[pair(node.queryNode, node.transducerNode)];
+    }
+}
@@ -0,0 +1,133 @@
+package ProductAutomatonSpecification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * frozen, array-backed form of a productAutomatonGraph (compressed sparse row).
+ * <br/> --- <br/>
+ * the outgoing edges of the node with id i are the edges offsets[i], ..., offsets[i + 1] - 1.
+ * for such an edge e
+ * targets[e] is the id of its target node,
+ * costs[e] is its cost,
+ * incomingLabels[e] and outgoingLabels[e] are the ids of its labels (see getLabel()).
+ * <br/> --- <br/>
+ * the edges of a node keep the order of node.edges.
+ * once the CSR is built the productAutomatonGraph is frozen (see ProductAutomatonGraph.freeze()), the CSR is the only copy of the edges then.
+ * <br/> --- <br/>
+ * searches that walk backwards can add the reversed edges (see buildReverse()):
+ * the edges pointing to the node with id i are the entries reverseOffsets[i], ..., reverseOffsets[i + 1] - 1 of
+ * reverseSources (the id of their source node) and reverseCosts.
+ */
+public class ProductAutomatonCSR {
+
+    public int[] offsets;
+    public int[] targets;
+    public double[] costs;
+    public int[] incomingLabels;
+    public int[] outgoingLabels;
+
+    // reversed edges, null until buildReverse() is called
+    public int[] reverseOffsets;
+    public int[] reverseSources;
+    public double[] reverseCosts;
+
+    // label id -> label. id 0 is the empty String (epsilon)
+    private final ArrayList<String> labels;
+
+    /**
+     * builds the CSR of the graph. node i of the CSR is graph.getNode(i).
+     *
+     * @param graph the (fully constructed) productAutomatonGraph
+     */
+    public ProductAutomatonCSR(ProductAutomatonGraph graph) {
+        int numberOfNodes = graph.nodesById.size();
+
+        // count the edges first so every array is allocated exactly once.
+        offsets = new int[numberOfNodes + 1];
+        for (int i = 0; i < numberOfNodes; i++) {
+            offsets[i + 1] = offsets[i] + graph.getNode(i).edges.size();
+        }
+
+        int numberOfEdges = offsets[numberOfNodes];
+        targets = new int[numberOfEdges];
+        costs = new double[numberOfEdges];
+        incomingLabels = new int[numberOfEdges];
+        outgoingLabels = new int[numberOfEdges];
+
+        labels = new ArrayList<>();
+        HashMap<String, Integer> labelIds = new HashMap<>();
+        labels.add("");
+        labelIds.put("", 0);
+
+        int e = 0;
+        for (int i = 0; i < numberOfNodes; i++) {
+            for (ProductAutomatonEdge edge : graph.getNode(i).edges) {
+                targets[e] = edge.target.id;
+                costs[e] = edge.cost;
+                incomingLabels[e] = labelId(labelIds, edge.incomingString);
+                outgoingLabels[e] = labelId(labelIds, edge.outgoingString);
+                e++;
+            }
+        }
+    }
+
+    /**
+     * builds the reversed edges (only once, later calls return immediately).
+     */
+    public synchronized void buildReverse() {
+        if (reverseOffsets != null) {
+            return;
+        }
+        int numberOfNodes = getNumberOfNodes();
+        int[] offsets = new int[numberOfNodes + 1];
+        for (int e = 0; e < getNumberOfEdges(); e++) {
+            offsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < numberOfNodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] sources = new int[getNumberOfEdges()];
+        double[] reversedCosts = new double[getNumberOfEdges()];
+        int[] position = Arrays.copyOf(offsets, numberOfNodes);
+        for (int i = 0; i < numberOfNodes; i++) {
+            for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                int slot = position[targets[e]]++;
+                sources[slot] = i;
+                reversedCosts[slot] = costs[e];
+            }
+        }
+
+        reverseSources = sources;
+        reverseCosts = reversedCosts;
+        reverseOffsets = offsets;
+    }
+
+    private int labelId(HashMap<String, Integer> labelIds, String label) {
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            id = labels.size();
+            labels.add(label);
+            labelIds.put(label, id);
+        }
+        return id;
+    }
+
+    public int getNumberOfNodes() {
+        return offsets.length - 1;
+    }
+
+    public int getNumberOfEdges() {
+        return targets.length;
+    }
+
+    /**
+     * @param labelId the id of a label
+     * @return the label with this id ("" represents epsilon)
+     */
+    public String getLabel(int labelId) {
+        return labels.get(labelId);
+    }
+}
@@ -1,6 +1,8 @@
 package ProductAutomatonSpecification;
 
 import Algorithms.EdgeType;
+import Algorithms.IndexedDaryHeap;
+import Application.Settings;
 import DataProvider.DataProvider;
 import Database.DatabaseEdge;
 import Database.DatabaseGraph;
@@ -8,13 +10,24 @@ import Database.DatabaseNode;
 import Query.QueryEdge;
 import Query.QueryGraph;
 import Query.QueryNode;
+import Transducer.RewriteTable;
 import Transducer.TransducerEdge;
 import Transducer.TransducerGraph;
 import Transducer.TransducerNode;
-import org.javatuples.Pair;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 
 public class ProductAutomatonConstructor {
@@ -29,6 +42,46 @@ public class ProductAutomatonConstructor {
 
     public ProductAutomatonGraph productAutomatonGraph;
 
+    // array-backed snapshot of the productAutomatonGraph that the searches iterate over. built at the end of construct(), null in lazy mode.
+    public ProductAutomatonCSR productAutomatonCSR;
+
+    // true if the productAutomaton is explored on the fly instead of being materialised up front.
+    // see initialiseLazyConstruction() and getOutgoingEdges()
+    public boolean lazy;
+
+    // node.index -> index of the first node with the same identifier (ignoring case), one array per graph.
+    // the states are encoded with these indices (see encode()), so the case of the identifiers is resolved once here and not per state.
+    private int[] queryIndices;
+    private int[] transducerIndices;
+    private int[] databaseIndices;
+    private long numberOfTransducerNodes;
+    private long numberOfDatabaseNodes;
+
+    // true if construct() spreads the work over several threads (see constructInParallel())
+    public boolean parallel;
+    // encoded state -> node, only used while the parallel construction is running
+    private ConcurrentHashMap<Long, ProductAutomatonNode> concurrentNodes;
+
+    // not null if the transducer has a single state (see RewriteTable). the transducer dimension of the states is constant then:
+    // the states are (queryNode, databaseNode) pairs and the transducer edges are looked up in the table instead of being filtered by their source.
+    public RewriteTable rewriteTable;
+
+    // true if construct() removes the states that cannot be part of any answer (see prune())
+    public boolean prune;
+    public int numberOfPrunedNodes;
+    public int numberOfPrunedEdges;
+
+    // threshold mode: only states that can be reached from an initial state at a cost below this bound are built (see constructWithinBound()).
+    // transducer edges costing at least this much are skipped in every construction. infinity: no bound.
+    public double costBound = Double.POSITIVE_INFINITY;
+
+    // identifiers of the databaseNodes the answers start in (see Settings.sourceNodes). null: every databaseNode.
+    // only the initial states of these databaseNodes are searched and only what they reach is built (see constructFromSources()).
+    public Set<String> sources;
+
+    // lower bounds of the A* searches, computed on first use (see getLowerBoundHeuristic())
+    private LowerBoundHeuristic lowerBoundHeuristic;
+
 
     /**
      * constructor.
@@ -46,6 +99,23 @@ public class ProductAutomatonConstructor {
         this.transducerGraph = transducerGraph;
         this.databaseGraph = databaseGraph;
         productAutomatonGraph = new ProductAutomatonGraph();
+        lazy = Settings.isLazyConstruction();
+        parallel = Settings.isParallelConstruction();
+        prune = Settings.isPruneProduct();
+        sources = Settings.getSourceNodes();
+    }
+
+    /**
+     * constructor for the threshold mode. only paths cheaper than the threshold are answers, so the productAutomaton is only built up to this cost.
+     *
+     * @param queryGraph      the query graph
+     * @param transducerGraph the transducer graph
+     * @param databaseGraph   the database graph
+     * @param costBound       the threshold
+     */
+    public ProductAutomatonConstructor(QueryGraph queryGraph, TransducerGraph transducerGraph, DatabaseGraph databaseGraph, double costBound) {
+        this(queryGraph, transducerGraph, databaseGraph);
+        this.costBound = costBound;
     }
 
 
@@ -101,342 +171,809 @@ public class ProductAutomatonConstructor {
      */
 
     public void construct() {
-        HashMap<String, ProductAutomatonNode> temporaryNodes = new HashMap<>();
-        HashSet<TransducerEdge> fittingTransducerEdges = new HashSet<>();
-        Pair<ProductAutomatonNode, ProductAutomatonNode> pairOfNodes;
-        ProductAutomatonNode source;
-        ProductAutomatonNode target;
-        String testString = "";
+        numberOfTransducerNodes = transducerGraph.nodes.size();
+        numberOfDatabaseNodes = databaseGraph.nodes.size();
+        queryIndices = caseInsensitiveIndices(queryGraph.nodes, node -> node.index, node -> node.identifier);
+        transducerIndices = caseInsensitiveIndices(transducerGraph.nodes, node -> node.index, node -> node.identifier);
+        databaseIndices = caseInsensitiveIndices(databaseGraph.nodes, node -> node.index, node -> node.identifier);
+        rewriteTable = RewriteTable.compile(transducerGraph);
+
+        if (lazy) {
+            initialiseLazyConstruction();
+            return;
+        }
 
+        if (costBound != Double.POSITIVE_INFINITY) {
+            constructWithinBound();
+        } else if (sources != null) {
+            constructFromSources();
+        } else if (parallel) {
+            constructInParallel();
+        } else {
+            //part (I)
+            for (QueryNode queryNode : queryGraph.nodes) {
+                for (QueryEdge queryEdge : queryNode.edges) {
+                    // part (II)
+                    for (TransducerEdge transducerEdge : getFittingTransducerEdges(queryNode, queryEdge)) {
+                        // part (III)
+                        addEdges(queryEdge, transducerEdge, null);
+                    }
+                }
+            }
+        }
+
+        if (prune) {
+            prune();
+        }
+
+        // the graph is complete, freeze it.
+        productAutomatonCSR = new ProductAutomatonCSR(productAutomatonGraph);
+        productAutomatonGraph.freeze(productAutomatonCSR);
+    }
+
+    /**
+     * part (II): we take the label of the queryEdge and run it through the transducer.
+     * NOTE: here we also add edges of the form (IV | 2) "outgoing epsilon edges"
+     *
+     * @param queryNode the source of the queryEdge
+     * @param queryEdge the queryEdge
+     * @return all transducer edges that can be combined with the queryEdge
+     */
+    private Collection<TransducerEdge> getFittingTransducerEdges(QueryNode queryNode, QueryEdge queryEdge) {
+        if (rewriteTable != null) {
+            // single transducer state: the table already holds the fitting edges (incl. the incoming epsilon edges) per label.
+            return rewriteTable.getRewrites(queryEdge.label, queryNode.isFinalState());
+        }
+
+        // we only look up the edges reading our label instead of scanning the whole transducer.
+        HashSet<TransducerEdge> fittingTransducerEdges = new HashSet<>(transducerGraph.getEdgesWithIncomingString(queryEdge.label));
 
-        //part (I)
+        // add incoming epsilon edges where they can be applied
+        if (queryNode.isFinalState()) {
+            fittingTransducerEdges.addAll(transducerGraph.getEpsilonIncomingEdges());
+        }
+        return fittingTransducerEdges;
+    }
+
+    /**
+     * part (III): adds all edges the pair (queryEdge, transducerEdge) creates.
+     * we only fetch the database edges carrying the label the transducer writes.
+     *
+     * @param queryEdge      the queryEdge
+     * @param transducerEdge a transducerEdge that fits the queryEdge (see part (II))
+     * @param candidates     null: the edges are added to the productAutomatonGraph. otherwise they are only collected in this list (parallel construction).
+     */
+    private void addEdges(QueryEdge queryEdge, TransducerEdge transducerEdge, LinkedList<ProductAutomatonEdge> candidates) {
+        if (transducerEdge.cost >= costBound) {
+            // every path using this edge costs too much
+            return;
+        }
+        EdgeType edgeType = getEdgeType(transducerEdge);
+
+        if (transducerEdge.outgoingString.isBlank()) {
+            // epsilon outgoing: the database pauses. this works in every database node that has an outgoing edge.
+            for (DatabaseNode databaseNode : databaseGraph.getNodesWithOutgoingEdges()) {
+                addEdge(queryEdge, transducerEdge, databaseNode, databaseNode, edgeType, candidates);
+            }
+        } else if (isNegated(transducerEdge.outgoingString)) {
+            // negative outgoing: we walk the database edges with the unnegated label backwards.
+            for (DatabaseEdge databaseEdge : databaseGraph.getEdgesWithLabel(unNegateString(transducerEdge.outgoingString))) {
+                addEdge(queryEdge, transducerEdge, databaseEdge.source, databaseEdge.target, edgeType, candidates);
+            }
+        } else {
+            // positive outgoing
+            for (DatabaseEdge databaseEdge : databaseGraph.getEdgesWithLabel(transducerEdge.outgoingString)) {
+                addEdge(queryEdge, transducerEdge, databaseEdge.source, databaseEdge.target, edgeType, candidates);
+            }
+        }
+    }
+
+    /**
+     * parallel variant of part (I) - (III).
+     * Every pair (queryEdge, fitting transducerEdge) is an independent piece of work. The pairs are processed on the common ForkJoinPool.
+     * The workers do not touch the productAutomatonGraph: they intern their nodes through a concurrent map and collect their edges in a list per pair.
+     * Afterwards the lists are merged into the graph in the order of the pairs, so the result does not depend on the scheduling.
+     * The duplicate check of the graph removes edges that were found by more than one pair.
+     */
+    private void constructInParallel() {
+        ArrayList<QueryEdge> queryEdges = new ArrayList<>();
+        ArrayList<TransducerEdge> transducerEdges = new ArrayList<>();
         for (QueryNode queryNode : queryGraph.nodes) {
             for (QueryEdge queryEdge : queryNode.edges) {
-                String localQueryLabel = queryEdge.label;
-
-                // part (II)
-                // NOTE: here we also add edges of the form (IV | 2) "outgoing epsilon edges"
-                fittingTransducerEdges.clear();
-                for (TransducerNode transducerNode : transducerGraph.nodes) {
-                    for (TransducerEdge transducerEdge : transducerNode.edges) {
-                        if (localQueryLabel.equals(transducerEdge.incomingString)) {
-                            fittingTransducerEdges.add(transducerEdge);
-                        }
+                for (TransducerEdge transducerEdge : getFittingTransducerEdges(queryNode, queryEdge)) {
+                    queryEdges.add(queryEdge);
+                    transducerEdges.add(transducerEdge);
+                }
+            }
+        }
 
-                        // add incoming epsilon edges where they can be applied
-                        if (queryNode.isFinalState()) {
-                            if (transducerEdge.incomingString.isBlank()) {
-                                fittingTransducerEdges.add(transducerEdge);
-                            }
-                        }
+        // the workers only read the label index of the database, it must not be (re)built while they run.
+        databaseGraph.getNodesWithOutgoingEdges();
+
+        concurrentNodes = new ConcurrentHashMap<>();
+        ArrayList<LinkedList<ProductAutomatonEdge>> candidates = new ArrayList<>();
+        for (int i = 0; i < queryEdges.size(); i++) {
+            candidates.add(new LinkedList<>());
+        }
+
+        ForkJoinPool.commonPool().invoke(new ConstructionTask(queryEdges, transducerEdges, candidates, 0, queryEdges.size()));
+
+        // merge
+        for (LinkedList<ProductAutomatonEdge> edges : candidates) {
+            for (ProductAutomatonEdge edge : edges) {
+                productAutomatonGraph.addProductAutomatonEdge(edge);
+            }
+        }
+        for (ProductAutomatonNode node : concurrentNodes.values()) {
+            productAutomatonGraph.addProductAutomatonNode(node);
+        }
+        concurrentNodes = null;
+    }
+
+    /**
+     * processes the pairs from (inclusive) ... to (exclusive). Ranges are split in halves until a single pair is left.
+     */
+    private class ConstructionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<QueryEdge> queryEdges;
+        private final ArrayList<TransducerEdge> transducerEdges;
+        private final ArrayList<LinkedList<ProductAutomatonEdge>> candidates;
+        private final int from;
+        private final int to;
+
+        ConstructionTask(ArrayList<QueryEdge> queryEdges, ArrayList<TransducerEdge> transducerEdges, ArrayList<LinkedList<ProductAutomatonEdge>> candidates, int from, int to) {
+            this.queryEdges = queryEdges;
+            this.transducerEdges = transducerEdges;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    addEdges(queryEdges.get(i), transducerEdges.get(i), candidates.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConstructionTask(queryEdges, transducerEdges, candidates, from, middle),
+                    new ConstructionTask(queryEdges, transducerEdges, candidates, middle, to));
+        }
+    }
+
+    /**
+     * removes every state that is not reachable from an initial state or that cannot reach a final state.
+     * such a state is never part of an answer path, but every search from an initial state still has to initialise (and maybe settle) it.
+     * <br/> --- <br/>
+     * (1) forward search from all initial nodes over the edges.
+     * (2) backward search from all final nodes over the reversed edges. it only walks over nodes found in (1):
+     * every node on a path from an initial to a final node is found in (1) anyway.
+     * the nodes found in both searches stay, the ids of the productAutomatonGraph are reassigned.
+     */
+    private void prune() {
+        int numberOfNodes = productAutomatonGraph.nodesById.size();
+        int numberOfEdges = 0;
+        int[] stack = new int[numberOfNodes];
+        int top = 0;
+
+        // (1)
+        boolean[] forward = new boolean[numberOfNodes];
+        for (ProductAutomatonNode node : productAutomatonGraph.initialNodes) {
+            forward[node.id] = true;
+            stack[top++] = node.id;
+        }
+        while (top > 0) {
+            for (ProductAutomatonEdge edge : productAutomatonGraph.getNode(stack[--top]).edges) {
+                if (!forward[edge.target.id]) {
+                    forward[edge.target.id] = true;
+                    stack[top++] = edge.target.id;
+                }
+            }
+        }
+
+        // reversed edges in CSR form: the sources of the edges pointing to i are reverseSources[reverseOffsets[i]], ..., reverseSources[reverseOffsets[i + 1] - 1]
+        int[] reverseOffsets = new int[numberOfNodes + 1];
+        for (ProductAutomatonNode node : productAutomatonGraph.nodesById) {
+            for (ProductAutomatonEdge edge : node.edges) {
+                reverseOffsets[edge.target.id + 1]++;
+                numberOfEdges++;
+            }
+        }
+        for (int i = 0; i < numberOfNodes; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] reverseSources = new int[numberOfEdges];
+        int[] position = new int[numberOfNodes];
+        for (ProductAutomatonNode node : productAutomatonGraph.nodesById) {
+            for (ProductAutomatonEdge edge : node.edges) {
+                int target = edge.target.id;
+                reverseSources[reverseOffsets[target] + position[target]++] = node.id;
+            }
+        }
+
+        // (2)
+        boolean[] keep = new boolean[numberOfNodes];
+        for (ProductAutomatonNode node : productAutomatonGraph.finalNodes) {
+            if (forward[node.id]) {
+                keep[node.id] = true;
+                stack[top++] = node.id;
+            }
+        }
+        while (top > 0) {
+            int id = stack[--top];
+            for (int e = reverseOffsets[id]; e < reverseOffsets[id + 1]; e++) {
+                int source = reverseSources[e];
+                if (forward[source] && !keep[source]) {
+                    keep[source] = true;
+                    stack[top++] = source;
+                }
+            }
+        }
+
+        numberOfPrunedEdges = productAutomatonGraph.retainNodes(keep);
+        numberOfPrunedNodes = numberOfNodes - productAutomatonGraph.nodesById.size();
+
+        System.out.println("pruned productAutomaton: removed " + numberOfPrunedNodes + " of " + numberOfNodes + " nodes and "
+                + numberOfPrunedEdges + " of " + numberOfEdges + " edges.");
+    }
+
+    /**
+     * cost-bounded construction for the threshold mode.
+     * we start with the initial states of the lazy construction and expand the states in the order of their distance from the closest initial state
+     * (one dijkstra with all initial states as sources). a state at distance costBound or more is never expanded.
+     * the single-source searches from the initial states cannot reach a state more cheaply than the closest initial state does,
+     * so they never need any state or edge beyond the bound either.
+     * <br/> --- <br/>
+     * the expansion also creates the successors that lie beyond the bound (the last layer), they are removed at the end.
+     * <p>
+     * NOTE: the initial states are those of the lazy construction, i.e. exactly the initial states of the full construction (see initialiseLazyConstruction()).
+     * an initial state keeps its place even if all of its edges cost costBound or more.
+     */
+    private void constructWithinBound() {
+        initialiseLazyConstruction();
+
+        IndexedDaryHeap queue = new IndexedDaryHeap(productAutomatonGraph.nodesById.size());
+        double[] distance = new double[Math.max(productAutomatonGraph.nodesById.size(), 16)];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        for (ProductAutomatonNode node : productAutomatonGraph.initialNodes) {
+            distance[node.id] = 0.0;
+            queue.insert(node.id, 0.0);
+        }
+
+        while (!queue.isEmpty()) {
+            ProductAutomatonNode node = productAutomatonGraph.getNode(queue.poll());
+            expand(node);
+            for (ProductAutomatonEdge edge : node.edges) {
+                double newDistance = distance[node.id] + edge.cost;
+                if (newDistance >= costBound) {
+                    continue;
+                }
+                int target = edge.target.id;
+                if (target >= distance.length) {
+                    int oldLength = distance.length;
+                    distance = Arrays.copyOf(distance, Math.max(target + 1, oldLength * 2));
+                    Arrays.fill(distance, oldLength, distance.length, Double.POSITIVE_INFINITY);
+                }
+                if (newDistance < distance[target]) {
+                    // a state that left the queue already has its final distance, it cannot get here.
+                    if (queue.contains(target)) {
+                        queue.decreaseKey(target, newDistance);
+                    } else {
+                        queue.insert(target, newDistance);
                     }
+                    distance[target] = newDistance;
+                }
+            }
+        }
+
+        // remove the last layer
+        int numberOfNodes = productAutomatonGraph.nodesById.size();
+        boolean[] keep = new boolean[numberOfNodes];
+        for (int id = 0; id < numberOfNodes; id++) {
+            keep[id] = id < distance.length && distance[id] < costBound;
+        }
+        productAutomatonGraph.retainNodes(keep);
+    }
+
+    /**
+     * construction for a few sources (see sources).
+     * we start with the initial states of the selected databaseNodes and expand every state they reach (depth-first), nothing else is built.
+     * the result is the part of the full productAutomaton that can be reached from these initial states.
+     * <p>
+     * NOTE: the initial states are exactly those of the full construction (see initialiseLazyConstruction()),
+     * every other state is created as the successor of a state we expand, so nothing has to be removed afterwards.
+     */
+    private void constructFromSources() {
+        initialiseLazyConstruction();
+
+        int[] stack = new int[Math.max(productAutomatonGraph.nodesById.size(), 16)];
+        int top = 0;
+        boolean[] reached = new boolean[stack.length];
+        for (ProductAutomatonNode node : productAutomatonGraph.initialNodes) {
+            reached[node.id] = true;
+            stack[top++] = node.id;
+        }
+
+        while (top > 0) {
+            ProductAutomatonNode node = productAutomatonGraph.getNode(stack[--top]);
+            expand(node);
+            // the expansion adds new nodes, every array has to fit all ids.
+            int numberOfNodes = productAutomatonGraph.nodesById.size();
+            if (numberOfNodes > reached.length) {
+                int newLength = Math.max(numberOfNodes, reached.length * 2);
+                stack = Arrays.copyOf(stack, newLength);
+                reached = Arrays.copyOf(reached, newLength);
+            }
+            for (ProductAutomatonEdge edge : node.edges) {
+                if (!reached[edge.target.id]) {
+                    reached[edge.target.id] = true;
+                    stack[top++] = edge.target.id;
                 }
+            }
+        }
+    }
+
+    /**
+     * @return true if the answers may start in databaseNode (see sources)
+     */
+    public boolean isSource(DatabaseNode databaseNode) {
+        return sources == null || sources.contains(databaseNode.identifier);
+    }
+
+    /**
+     * the nodes the searches start in: the initial states of the sources (all initial states if there is no restriction).
+     * a copy, the lazy construction can keep adding initial states while the searches run.
+     */
+    public List<ProductAutomatonNode> getSourceNodes() {
+        ArrayList<ProductAutomatonNode> sourceNodes = new ArrayList<>();
+        for (ProductAutomatonNode node : productAutomatonGraph.initialNodes) {
+            if (isSource(node.databaseNode)) {
+                sourceNodes.add(node);
+            }
+        }
+        return sourceNodes;
+    }
+
+    /**
+     * lazy alternative to the full construction.
+     * Instead of materialising the whole productAutomaton we only create the initial states (q0, t0, d) for every initial queryNode q0,
+     * every initial transducerNode t0 and every databaseNode d (only the sources, if they are restricted).
+     * All initial states of the sources exist from the start, the search never adds new ones (see getSourceNodes()).
+     * The successors of a state are generated when the search asks for them (see getOutgoingEdges()),
+     * so states that are never reached are never built.
+     * <p>
+     * NOTE: the full construction only knows states that are part of some edge, so we only create the initial states that are part of an edge
+     * of the full productAutomaton (see isPartOfAnEdge()). An initial state that is also final but has no edge at all would give the answer (d, d) with cost 0.
+     * Every construction starts from these initial states (lazy, cost-bounded and from the sources), so all of them know the same initial states
+     * and give the same answers as the full construction.
+     */
+    public void initialiseLazyConstruction() {
+        for (QueryNode queryNode : queryGraph.nodes) {
+            if (!queryNode.isInitialState()) {
+                continue;
+            }
+            for (TransducerNode transducerNode : transducerGraph.nodes) {
+                if (!transducerNode.isInitialState()) {
+                    continue;
+                }
+                // the labels of the database edges the edges of (q0, t0, _) need
+                HashSet<String> outgoingLabels = new HashSet<>();
+                HashSet<String> incomingLabels = new HashSet<>();
+                collectDatabaseLabels(queryNode, transducerNode, outgoingLabels, incomingLabels);
 
-                // part (III)
                 for (DatabaseNode databaseNode : databaseGraph.nodes) {
-                    for (DatabaseEdge databaseEdge : databaseNode.edges) {
-                        String localDatabaseLabel = databaseEdge.label;
-
-                        // (2)
-                        // for all transducer edges that were found in part (II):
-                        //      check whether
-                        for (TransducerEdge transducerEdge : fittingTransducerEdges) {
-
-                            if (transducerEdge.incomingString.isBlank()) {
-                                // type 1:  incoming epsilon edges.
-                                if (transducerEdge.outgoingString.isBlank()) {
-                                    // epsilon incoming, epsilon outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.epsilonIncomingEpsilonOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, "", "", transducerEdge.cost);
-
-
-                                } else if ((isNegated(transducerEdge.outgoingString)) && (localDatabaseLabel.equals(unNegateString(transducerEdge.outgoingString)))) {
-                                    // epsilon incoming, negative outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.epsilonIncomingNegativeOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, "", transducerEdge.outgoingString, transducerEdge.cost);
-                                } else if (!isNegated(transducerEdge.outgoingString) && (localDatabaseLabel.equals(transducerEdge.outgoingString))) {
-                                    // epsilon incoming, positive outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.epsilonIncomingPositiveOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, "", transducerEdge.outgoingString, transducerEdge.cost);
-                                }
-
-                            } else if (!isNegated(transducerEdge.incomingString)) {
-                                // type 2: incoming positive edges
-                                if (transducerEdge.outgoingString.isBlank()) {
-                                    // positive incoming, epsilon outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.positiveIncomingEpsilonOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, transducerEdge.incomingString, "", transducerEdge.cost);
-                                } else if ((!isNegated(transducerEdge.outgoingString)) && (localDatabaseLabel.equals(transducerEdge.outgoingString))) {
-                                    // positive incoming, positive outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.positiveIncomingPositiveOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, transducerEdge.incomingString, transducerEdge.outgoingString, transducerEdge.cost);
-                                } else if ((isNegated(transducerEdge.outgoingString)) && (localDatabaseLabel.equals(unNegateString(transducerEdge.outgoingString)))) {
-                                    // positive incoming, negative outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.positiveIncomingNegativeOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, transducerEdge.incomingString, transducerEdge.outgoingString, transducerEdge.cost);
-                                }
-
-                            } else if (isNegated(transducerEdge.incomingString)) {
-                                // type 3: incoming negative edges
-                                if (transducerEdge.outgoingString.isBlank()) {
-                                    // negative incoming, epsilon outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.negativeIncomingEpsilonOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, transducerEdge.incomingString, "", transducerEdge.cost);
-                                } else if ((!isNegated(transducerEdge.outgoingString)) && (localDatabaseLabel.equals(transducerEdge.outgoingString))) {
-                                    // negative incoming, positive outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.negativeIncomingPositiveOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, transducerEdge.incomingString, transducerEdge.outgoingString, transducerEdge.cost);
-                                } else if ((isNegated(transducerEdge.outgoingString)) && (localDatabaseLabel.equals(unNegateString(transducerEdge.outgoingString)))) {
-                                    // negative incoming, negative outgoing
-                                    pairOfNodes = constructAutomatonNode(queryEdge, transducerEdge, databaseEdge, EdgeType.negativeIncomingNegativeOutgoing);
-                                    source = pairOfNodes.getValue0();
-                                    target = pairOfNodes.getValue1();
-                                    source = getInstance(temporaryNodes, source); // duplicate check
-                                    target = getInstance(temporaryNodes, target); // duplicate check
-                                    productAutomatonGraph.addProductAutomatonEdge(source, target, transducerEdge.incomingString, transducerEdge.outgoingString, transducerEdge.cost);
-                                }
-                            }
+                    if (isSource(databaseNode) && isPartOfAnEdge(databaseNode, outgoingLabels, incomingLabels)) {
+                        getInstance(queryNode, transducerNode, databaseNode);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * collects the labels of the database edges a state (queryNode, transducerNode, d) needs to be part of an edge of the full productAutomaton.
+     * we run through part (I) and (II) of construct() and keep the pairs (queryEdge, transducerEdge) whose edges start or end in (queryNode, transducerNode).
+     * the cost bound is ignored, it only decides which edges are built and not which states exist.
+     *
+     * @param queryNode      the queryNode of the state
+     * @param transducerNode the transducerNode of the state
+     * @param outgoingLabels d needs an outgoing database edge with one of these labels ("": any outgoing edge, the database pauses)
+     * @param incomingLabels d needs an incoming database edge with one of these labels
+     */
+    private void collectDatabaseLabels(QueryNode queryNode, TransducerNode transducerNode, Set<String> outgoingLabels, Set<String> incomingLabels) {
+        for (QueryNode sourceQueryNode : queryGraph.nodes) {
+            for (QueryEdge queryEdge : sourceQueryNode.edges) {
+                for (TransducerEdge transducerEdge : getFittingTransducerEdges(sourceQueryNode, queryEdge)) {
+                    String outgoing = transducerEdge.outgoingString;
+                    boolean pause = outgoing.isBlank();
+                    boolean backwards = !pause && isNegated(outgoing);
+                    String label = pause ? "" : backwards ? unNegateString(outgoing) : outgoing;
+
+                    // the state is the source of the edge: the database edge leaves d (enters d if we walk backwards)
+                    if (queryEdge.source == queryNode && transducerEdge.source == transducerNode) {
+                        if (backwards) {
+                            incomingLabels.add(label);
+                        } else {
+                            outgoingLabels.add(label);
+                        }
+                    }
+
+                    // the state is the target of the edge (the query pauses on incoming epsilon, see addEdge())
+                    QueryNode targetQueryNode = transducerEdge.incomingString.isBlank() ? queryEdge.source : queryEdge.target;
+                    if (targetQueryNode == queryNode && transducerEdge.target == transducerNode) {
+                        if (pause || backwards) {
+                            outgoingLabels.add(label);
+                        } else {
+                            incomingLabels.add(label);
                         }
                     }
                 }
             }
         }
     }
-    //}
 
     /**
-     * helper function that builds us the ProductAutomatonNodes needed to create new edges.
+     * @return true if the databaseNode has one of the database edges (see collectDatabaseLabels())
+     */
+    private boolean isPartOfAnEdge(DatabaseNode databaseNode, Set<String> outgoingLabels, Set<String> incomingLabels) {
+        for (String label : outgoingLabels) {
+            if (label.isEmpty() ? !databaseNode.edges.isEmpty() : !databaseGraph.getOutgoingEdgesWithLabel(databaseNode, label).isEmpty()) {
+                return true;
+            }
+        }
+        for (String label : incomingLabels) {
+            if (!databaseGraph.getIncomingEdgesWithLabel(databaseNode, label).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the outgoing edges of a node.
+     * In lazy mode the node is expanded first (only once), i.e. all its successors are created and added to the productAutomatonGraph.
+     *
+     * @param node the productAutomatonNode the search just took from its queue
+     * @return the outgoing edges of the node
+     */
+    public LinkedList<ProductAutomatonEdge> getOutgoingEdges(ProductAutomatonNode node) {
+        if (lazy && !node.expanded) {
+            expand(node);
+        }
+        return node.edges;
+    }
+
+    /**
+     * creates all edges leaving the node (q, t, d).
+     * This is the construction of construct() restricted to one state:
+     * part (I) and (II) only use the query edges leaving q and the transducer edges leaving t,
+     * part (III) uses the forward/inverse database index of d instead of all edges with the written label.
+     *
+     * @param node the node to expand
+     */
+    private void expand(ProductAutomatonNode node) {
+        node.expanded = true;
+        QueryNode queryNode = node.queryNode;
+        TransducerNode transducerNode = node.transducerNode;
+        DatabaseNode databaseNode = node.databaseNode;
+
+        if (rewriteTable != null) {
+            // single transducer state: every edge of the table leaves our transducerNode, no filtering needed.
+            for (QueryEdge queryEdge : queryNode.edges) {
+                for (TransducerEdge transducerEdge : rewriteTable.getRewrites(queryEdge.label, false)) {
+                    addSuccessors(queryEdge, transducerEdge, databaseNode);
+                }
+            }
+            if (queryNode.isFinalState() && !queryNode.edges.isEmpty()) {
+                QueryEdge queryEdge = queryNode.edges.getFirst();
+                for (TransducerEdge transducerEdge : rewriteTable.getEpsilonRewrites()) {
+                    addSuccessors(queryEdge, transducerEdge, databaseNode);
+                }
+            }
+            return;
+        }
+
+        for (QueryEdge queryEdge : queryNode.edges) {
+            for (TransducerEdge transducerEdge : transducerGraph.getEdgesWithIncomingString(queryEdge.label)) {
+                if (transducerEdge.source == transducerNode) {
+                    addSuccessors(queryEdge, transducerEdge, databaseNode);
+                }
+            }
+        }
+
+        // incoming epsilon edges. just like in construct() they are applied in final query states that have an outgoing edge.
+        // the query pauses, so any edge leaving the queryNode will do.
+        if (queryNode.isFinalState() && !queryNode.edges.isEmpty()) {
+            QueryEdge queryEdge = queryNode.edges.getFirst();
+            for (TransducerEdge transducerEdge : transducerGraph.getEpsilonIncomingEdges()) {
+                if (transducerEdge.source == transducerNode) {
+                    addSuccessors(queryEdge, transducerEdge, databaseNode);
+                }
+            }
+        }
+    }
+
+    /**
+     * part (III) for a single database node: adds every edge the pair (queryEdge, transducerEdge) creates when we are in databaseNode.
      *
      * @param queryEdge      the respective queryEdge
      * @param transducerEdge the respective transducerEdge
-     * @param databaseEdge   the respective databaseEdge
+     * @param databaseNode   the database node we are in
+     */
+    private void addSuccessors(QueryEdge queryEdge, TransducerEdge transducerEdge, DatabaseNode databaseNode) {
+        if (transducerEdge.cost >= costBound) {
+            // every path using this edge costs too much
+            return;
+        }
+        EdgeType edgeType = getEdgeType(transducerEdge);
+
+        if (transducerEdge.outgoingString.isBlank()) {
+            // the database pauses. as in construct() this needs an outgoing edge of the database node.
+            if (!databaseNode.edges.isEmpty()) {
+                addEdge(queryEdge, transducerEdge, databaseNode, databaseNode, edgeType, null);
+            }
+        } else if (isNegated(transducerEdge.outgoingString)) {
+            // we walk backwards, i.e. we need the edges pointing to our database node.
+            for (DatabaseEdge databaseEdge : databaseGraph.getIncomingEdgesWithLabel(databaseNode, unNegateString(transducerEdge.outgoingString))) {
+                addEdge(queryEdge, transducerEdge, databaseEdge.source, databaseEdge.target, edgeType, null);
+            }
+        } else {
+            for (DatabaseEdge databaseEdge : databaseGraph.getOutgoingEdgesWithLabel(databaseNode, transducerEdge.outgoingString)) {
+                addEdge(queryEdge, transducerEdge, databaseEdge.source, databaseEdge.target, edgeType, null);
+            }
+        }
+    }
+
+    /**
+     * helper function that retrieves (or creates) the source and target node and adds the corresponding edge to the productAutomatonGraph.
+     * <br/> --- <br/>
+     * last modified: 2021_03_16
+     * Currently we support 2RPQs. We have 6 different edge types that can appear.
+     * Below you can see when they arise (i) and how we handle them (ii).
+     * <br/> --- <br/>
+     * <br/> --- <br/>
+     * (1) incoming epsilon.
+     * (i) our query is in a final state and the transducer allows to read epsilon and replace it with some string.
+     * (ii) query stays in the same state, transducer moves, database moves.
+     * <br/> --- <br/>
+     * (2) outgoing epsilon.
+     * (i) can arise everywhere. We read some String and the transducer allows the deletion of said String at cost k.
+     * (ii) query moves, transducer moves, database stays in the same state.
+     * <br/> --- <br/>
+     * (3) approximated.
+     * (i) can arise everywhere. We read some String and the transducer then changes this String to some other String (incl. duplicates)
+     * (ii) query moves, transducer moves, database moves.
+     * <br/> --- <br/>
+     *  *** Now for the inverse variants of these edge types
+     * <br/> --- <br/>
+     * (4) inverse incoming epsilon.
+     * (i) same as (1) (i) - note that we read an inverse label (outgoing transducer).
+     * (ii) query stays in the same state, transducer moves, database moves backwards
+     * <br/> --- <br/>
+     * (5) inverse outgoing epsilon.
+     * (i) same as (2) (i) - note that we read an inverse label (incoming transducer).
+     * (ii) query moves, transducer moves, database stays in the same state.
+     * <br/> --- <br/>
+     * (6) inverse approximated.
+     * (i) same as (3) (i) - note that we read an inverse label (outgoing transducer).
+     *
+     * @param queryEdge      the respective queryEdge
+     * @param transducerEdge the respective transducerEdge
+     * @param databaseSource source of the respective databaseEdge (the database node itself if the database pauses)
+     * @param databaseTarget target of the respective databaseEdge (the database node itself if the database pauses)
      * @param edgeType       the edgeType that needs to be created.
-     * @return a Pair of ProductAutomatonNodes, containing the source node (value_0) and the target node (value_1)
+     * @param candidates     null: the edge is added to the productAutomatonGraph. otherwise it is only collected in this list (parallel construction).
      */
-    private Pair<ProductAutomatonNode, ProductAutomatonNode> constructAutomatonNode(QueryEdge queryEdge, TransducerEdge transducerEdge, DatabaseEdge databaseEdge, EdgeType edgeType) {
-
-        boolean sourceInitialState;
-        boolean sourceFinalState;
-        boolean targetInitialState;
-        boolean targetFinalState;
-        Pair<ProductAutomatonNode, ProductAutomatonNode> resultPairOfNodes;
-
-        ProductAutomatonNode sourceNode;
-        ProductAutomatonNode targetNode;
-
-        /**
-         * last modified: 2021_03_16
-         * TODO: this is a nice explanation, however it does not fit here. we just create automaton nodes here! (not the edges..)
-         * Currently we support 2RPQs. We have 6 different edge types that can appear.
-         * Below you can see when they arise (i) and how we handle them (ii).
-         * <br/> --- <br/>
-         * <br/> --- <br/>
-         * (1) incoming epsilon.
-         * (i) our query is in a final state and the transducer allows to read epsilon and replace it with some string.
-         * (ii) query stays in the same state, transducer moves, database moves.
-         * <br/> --- <br/>
-         * (2) outgoing epsilon.
-         * (i) can arise everywhere. We read some String and the transducer allows the deletion of said String at cost k.
-         * (ii) query moves, transducer moves, database stays in the same state.
-         * <br/> --- <br/>
-         * (3) approximated.
-         * (i) can arise everywhere. We read some String and the transducer then changes this String to some other String (incl. duplicates)
-         * (ii) query moves, transducer moves, database moves.
-         * <br/> --- <br/>
-         *  *** Now for the inverse variants of these edge types
-         * <br/> --- <br/>
-         * (4) inverse incoming epsilon.
-         * (i) same as (1) (i) - note that we read an inverse label (outgoing transducer).
-         * (ii) query stays in the same state, transducer moves, database moves backwards
-         * <br/> --- <br/>
-         * (5) inverse outgoing epsilon.
-         * (i) same as (2) (i) - note that we read an inverse label (incoming transducer).
-         * (ii) query moves, transducer moves, database stays in the same state.
-         * <br/> --- <br/>
-         * (6) inverse approximated.
-         * (i) same as (3) (i) - note that we read an inverse label (outgoing transducer).
-         *
-         */
+    private void addEdge(QueryEdge queryEdge, TransducerEdge transducerEdge, DatabaseNode databaseSource, DatabaseNode databaseTarget, EdgeType edgeType, LinkedList<ProductAutomatonEdge> candidates) {
+        QueryNode targetQueryNode;
+        DatabaseNode sourceDatabaseNode;
+        DatabaseNode targetDatabaseNode;
+
+        // the transducer always moves from transducerEdge.source to transducerEdge.target, the query and the database depend on the edgeType.
         switch (edgeType) {
             // type 1
             case epsilonIncomingPositiveOutgoing:
-                // epsilon incoming, positive outgoing
                 // q pause, t move, db move
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.source.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.source.isFinalState() && transducerEdge.target.isFinalState());
-
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.source, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.target, databaseEdge.target, targetInitialState, targetFinalState);
-
+                targetQueryNode = queryEdge.source;
+                sourceDatabaseNode = databaseSource;
+                targetDatabaseNode = databaseTarget;
                 break;
             case epsilonIncomingNegativeOutgoing:
-                // epsilon incoming, negative outgoing
                 // q pause, t move, db move backwards
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.source.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.source.isFinalState() && transducerEdge.target.isFinalState());
-
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.target, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.target, databaseEdge.source, targetInitialState, targetFinalState);
+                targetQueryNode = queryEdge.source;
+                sourceDatabaseNode = databaseTarget;
+                targetDatabaseNode = databaseSource;
                 break;
             case epsilonIncomingEpsilonOutgoing:
-                // epsilon incoming, epsilon outgoing
                 // q pause, t move, db pause
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.source.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.source.isFinalState() && transducerEdge.target.isFinalState());
-
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.source, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.target, databaseEdge.source, targetInitialState, targetFinalState);
+                targetQueryNode = queryEdge.source;
+                sourceDatabaseNode = databaseSource;
+                targetDatabaseNode = databaseSource;
                 break;
 
-            // type 2
+            // type 2 and 3
             case positiveIncomingPositiveOutgoing:
-                // positive incoming, positive outgoing
+            case negativeIncomingPositiveOutgoing:
                 // q move, t move, db move
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.target.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.target.isFinalState() && transducerEdge.target.isFinalState());
-
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.source, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.target, transducerEdge.target, databaseEdge.target, targetInitialState, targetFinalState);
+                targetQueryNode = queryEdge.target;
+                sourceDatabaseNode = databaseSource;
+                targetDatabaseNode = databaseTarget;
                 break;
             case positiveIncomingNegativeOutgoing:
-                // positive incoming, negative outgoing
+            case negativeIncomingNegativeOutgoing:
                 // q move, t move, db move backwards
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.target.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.target.isFinalState() && transducerEdge.target.isFinalState());
-
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.target, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.target, transducerEdge.target, databaseEdge.source, targetInitialState, targetFinalState);
+                targetQueryNode = queryEdge.target;
+                sourceDatabaseNode = databaseTarget;
+                targetDatabaseNode = databaseSource;
                 break;
             case positiveIncomingEpsilonOutgoing:
-                // positive incoming, epsilon outgoing
+            case negativeIncomingEpsilonOutgoing:
                 // q move, t move, db pause
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.target.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.target.isFinalState() && transducerEdge.target.isFinalState());
-
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.source, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.target, transducerEdge.target, databaseEdge.source, targetInitialState, targetFinalState);
+                targetQueryNode = queryEdge.target;
+                sourceDatabaseNode = databaseSource;
+                targetDatabaseNode = databaseSource;
                 break;
+            default:
+                throw new IllegalStateException("Unexpected value: " + edgeType);
+        }
 
-            // type 3
-            case negativeIncomingPositiveOutgoing:
-                // negative incoming, positive outgoing
-                // q move, t move, db move
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
-
-                targetInitialState = (queryEdge.target.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.target.isFinalState() && transducerEdge.target.isFinalState());
+        String incoming = transducerEdge.incomingString.isBlank() ? "" : transducerEdge.incomingString;
+        String outgoing = transducerEdge.outgoingString.isBlank() ? "" : transducerEdge.outgoingString;
 
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.source, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.target, transducerEdge.target, databaseEdge.target, targetInitialState, targetFinalState);
-                break;
-            case negativeIncomingNegativeOutgoing:
-                // negative incoming, negative outgoing
-                // q move, t move, db move backwards
-
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
+        if (candidates != null) {
+            ProductAutomatonNode source = getConcurrentInstance(queryEdge.source, transducerEdge.source, sourceDatabaseNode);
+            ProductAutomatonNode target = getConcurrentInstance(targetQueryNode, transducerEdge.target, targetDatabaseNode);
+            candidates.add(new ProductAutomatonEdge(source, target, incoming, outgoing, transducerEdge.cost));
+            return;
+        }
 
-                targetInitialState = (queryEdge.target.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.target.isFinalState() && transducerEdge.target.isFinalState());
+        ProductAutomatonNode source = getInstance(queryEdge.source, transducerEdge.source, sourceDatabaseNode); // duplicate check
+        ProductAutomatonNode target = getInstance(targetQueryNode, transducerEdge.target, targetDatabaseNode); // duplicate check
 
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.target, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.target, transducerEdge.target, databaseEdge.source, targetInitialState, targetFinalState);
-                break;
-            case negativeIncomingEpsilonOutgoing:
-                // negative incoming, epsilon outgoing
-                // q move, t move, db pause
+        productAutomatonGraph.addProductAutomatonEdge(source, target, incoming, outgoing, transducerEdge.cost);
+    }
 
-                sourceInitialState = (queryEdge.source.isInitialState() && transducerEdge.source.isInitialState());
-                sourceFinalState = (queryEdge.source.isFinalState() && transducerEdge.source.isFinalState());
+    /**
+     * determines which of the nine edge types a transducer edge creates.
+     *
+     * @param transducerEdge the transducerEdge
+     * @return the corresponding edgeType
+     */
+    private EdgeType getEdgeType(TransducerEdge transducerEdge) {
+        boolean epsilonOutgoing = transducerEdge.outgoingString.isBlank();
+        boolean negativeOutgoing = !epsilonOutgoing && isNegated(transducerEdge.outgoingString);
+
+        if (transducerEdge.incomingString.isBlank()) {
+            // type 1:  incoming epsilon edges.
+            if (epsilonOutgoing) {
+                return EdgeType.epsilonIncomingEpsilonOutgoing;
+            } else if (negativeOutgoing) {
+                return EdgeType.epsilonIncomingNegativeOutgoing;
+            } else return EdgeType.epsilonIncomingPositiveOutgoing;
+
+        } else if (!isNegated(transducerEdge.incomingString)) {
+            // type 2: incoming positive edges
+            if (epsilonOutgoing) {
+                return EdgeType.positiveIncomingEpsilonOutgoing;
+            } else if (negativeOutgoing) {
+                return EdgeType.positiveIncomingNegativeOutgoing;
+            } else return EdgeType.positiveIncomingPositiveOutgoing;
+
+        } else {
+            // type 3: incoming negative edges
+            if (epsilonOutgoing) {
+                return EdgeType.negativeIncomingEpsilonOutgoing;
+            } else if (negativeOutgoing) {
+                return EdgeType.negativeIncomingNegativeOutgoing;
+            } else return EdgeType.negativeIncomingPositiveOutgoing;
+        }
+    }
+    //}
 
-                targetInitialState = (queryEdge.target.isInitialState() && transducerEdge.target.isInitialState());
-                targetFinalState = (queryEdge.target.isFinalState() && transducerEdge.target.isFinalState());
+    /**
+     * encodes the state (queryNode, transducerNode, databaseNode) as a single number (mixed radix over the node indices).
+     * with a single transducer state (|T| = 1, transducerIdx = 0) this is queryIdx * |D| + databaseIdx, i.e. the state space is two-dimensional.
+     *
+     * @return (queryIdx * |T| + transducerIdx) * |D| + databaseIdx
+     */
+    private long encode(QueryNode queryNode, TransducerNode transducerNode, DatabaseNode databaseNode) {
+        if (rewriteTable != null) {
+            return (long) queryIndices[queryNode.index] * numberOfDatabaseNodes + databaseIndices[databaseNode.index];
+        }
+        return ((long) queryIndices[queryNode.index] * numberOfTransducerNodes + transducerIndices[transducerNode.index]) * numberOfDatabaseNodes
+                + databaseIndices[databaseNode.index];
+    }
 
-                sourceNode = new ProductAutomatonNode(queryEdge.source, transducerEdge.source, databaseEdge.source, sourceInitialState, sourceFinalState);
-                targetNode = new ProductAutomatonNode(queryEdge.target, transducerEdge.target, databaseEdge.source, targetInitialState, targetFinalState);
-                break;
-            default:
-                throw new IllegalStateException("Unexpected value: " + edgeType);
+    /**
+     * @return node.index -> index of the first node with the same identifier (ignoring case)
+     */
+    private static <N> int[] caseInsensitiveIndices(Collection<N> nodes, ToIntFunction<N> index, Function<N, String> identifier) {
+        int[] indices = new int[nodes.size()];
+        HashMap<String, Integer> firstIndices = new HashMap<>();
+        for (N node : nodes) {
+            indices[index.applyAsInt(node)] = firstIndices.computeIfAbsent(identifier.apply(node).toLowerCase(), lowerCase -> index.applyAsInt(node));
         }
-        resultPairOfNodes = new Pair<>(sourceNode, targetNode);
+        return indices;
+    }
 
-        return resultPairOfNodes;
+    /**
+     * this method checks for possible duplicates.
+     * the lookup only uses the encoded state, a new node object is only created if the state is not known yet.
+     * a node is initial (final) if its query and transducer component are initial (final).
+     *
+     * @return the node of the state (queryNode, transducerNode, databaseNode), part of the productAutomatonGraph.
+     */
+    private ProductAutomatonNode getInstance(QueryNode queryNode, TransducerNode transducerNode, DatabaseNode databaseNode) {
+        long key = encode(queryNode, transducerNode, databaseNode);
+        ProductAutomatonNode known = productAutomatonGraph.getNodeByKey(key);
+        if (known != null) {
+            return known;
+        }
 
+        ProductAutomatonNode node = new ProductAutomatonNode(queryNode, transducerNode, databaseNode,
+                queryNode.isInitialState() && transducerNode.isInitialState(),
+                queryNode.isFinalState() && transducerNode.isFinalState());
+        node.key = key;
+        return productAutomatonGraph.addProductAutomatonNode(node);
     }
 
     /**
-     * this method checks for possible duplicates.
+     * thread-safe variant of getInstance() for the parallel construction.
+     * the node is only interned in concurrentNodes, it is added to the productAutomatonGraph when the edges are merged.
      *
-     * @param nodeMap the map containing all the nodes.
-     * @param node    the concrete node we want to test
-     * @return node, part of the nodeMap. (either retrieved from there or newly created and added)
+     * @return the node of the state (queryNode, transducerNode, databaseNode), shared by all workers.
      */
-    private ProductAutomatonNode getInstance(HashMap<String, ProductAutomatonNode> nodeMap, ProductAutomatonNode node) {
+    private ProductAutomatonNode getConcurrentInstance(QueryNode queryNode, TransducerNode transducerNode, DatabaseNode databaseNode) {
+        return concurrentNodes.computeIfAbsent(encode(queryNode, transducerNode, databaseNode), key -> {
+            ProductAutomatonNode node = new ProductAutomatonNode(queryNode, transducerNode, databaseNode,
+                    queryNode.isInitialState() && transducerNode.isInitialState(),
+                    queryNode.isFinalState() && transducerNode.isFinalState());
+            node.key = key;
+            return node;
+        });
+    }
 
-        if (nodeMap.containsKey(node.getIdentifier())) {
-            node = nodeMap.get(node.getIdentifier());
+    /**
+     * @return the lower bounds for the remaining cost of the states (A* heuristic). computed on the first call.
+     */
+    public synchronized LowerBoundHeuristic getLowerBoundHeuristic() {
+        if (lowerBoundHeuristic == null) {
+            lowerBoundHeuristic = new LowerBoundHeuristic(queryGraph, transducerGraph);
+        }
+        return lowerBoundHeuristic;
+    }
 
-        } else nodeMap.put(node.getIdentifier(), node);
+    /**
+     * the cost of a productAutomaton edge is the cost of its transducer edge.
+     *
+     * @return the largest cost of a transducer edge, 0 if there is none
+     */
+    public double getMaximumCost() {
+        double maximumCost = 0;
+        for (TransducerNode transducerNode : transducerGraph.nodes) {
+            for (TransducerEdge transducerEdge : transducerNode.edges) {
+                maximumCost = Math.max(maximumCost, transducerEdge.cost);
+            }
+        }
+        return maximumCost;
+    }
 
-        return node;
+    /**
+     * @return true if every transducer edge (and therefore every productAutomaton edge) has a non-negative integer cost
+     */
+    public boolean hasIntegralCosts() {
+        for (TransducerNode transducerNode : transducerGraph.nodes) {
+            for (TransducerEdge transducerEdge : transducerNode.edges) {
+                if (transducerEdge.cost < 0 || transducerEdge.cost != Math.rint(transducerEdge.cost)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     // returns if the string starts with a negation
@@ -41,9 +41,9 @@ public class ProductAutomatonEdge {
         } else outgoing = outgoingString;
 
         return String.format("(%s, %s, %s) -[%3s, %3s, %3s]-> (%s, %s, %s)",
-                source.identifier.getValue0().identifier, source.identifier.getValue1().identifier, source.identifier.getValue2().identifier,
+                source.queryNode.identifier, source.transducerNode.identifier, source.databaseNode.identifier,
                 incoming, outgoing, cost,
-                target.identifier.getValue0().identifier, target.identifier.getValue1().identifier, target.identifier.getValue2().identifier
+                target.queryNode.identifier, target.transducerNode.identifier, target.databaseNode.identifier
         );
     }
 
@@ -1,37 +1,73 @@
 package ProductAutomatonSpecification;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
 public class ProductAutomatonGraph {
 
-   public Set<ProductAutomatonNode> nodes;
    public Set<ProductAutomatonNode> initialNodes;
    public Set<ProductAutomatonNode> finalNodes;
 
+   // nodesById.get(i) is the node with id i. ids are handed out in the order the nodes are added.
+   public ArrayList<ProductAutomatonNode> nodesById;
+
+   // the edges once the graph is frozen (see freeze()), null before
+   private ProductAutomatonCSR csr;
+
+   // duplicate checks, only on primitive keys (no tuple or String per node or edge).
+   // all of them are null once the graph is frozen (see freeze()).
+   // nodes: their encoded state (ProductAutomatonNode.key) -> id. the constructor resolves the case of the identifiers once, when it encodes the states.
+   private LongIntHashMap nodeIds;
+   // edges: (source id, target id) and (label pair id, cost id), see addEdgeKey().
+   private LongPairHashSet edgeKeys;
+
+   // label -> id. the case is resolved once per label: every spelling of a label gets the id of its lower case form.
+   private HashMap<String, Integer> labelIds;
+   // id -> label (lower case)
+   private ArrayList<String> labels;
+   // (incoming label id, outgoing label id) -> id and the bits of a cost -> id, the parts of an edge key
+   private LongIntHashMap labelPairIds;
+   private LongIntHashMap costIds;
+
     public ProductAutomatonGraph() {
-          nodes = new HashSet<>();
           initialNodes = new HashSet<>();
           finalNodes = new HashSet<>();
+          nodesById = new ArrayList<>();
+          nodeIds = new LongIntHashMap();
+          edgeKeys = new LongPairHashSet();
+          labelIds = new HashMap<>();
+          labels = new ArrayList<>();
+          labelPairIds = new LongIntHashMap();
+          costIds = new LongIntHashMap();
 
     }
 
     /**
      * adds one node to the set of nodes (if it is not already contained)
      * adds the node to the set of initial and final states if it has one of these properties.
+     * two nodes are the same if they have the same encoded state (key).
      *
-     * @param productAutomatonNode the productAutomatonNode
+     * @param productAutomatonNode the productAutomatonNode, its key has to be set (see ProductAutomatonConstructor.encode())
+     * @return the node that is part of the graph (productAutomatonNode itself or the node that was already there)
      */
-    public void addProductAutomatonNode(ProductAutomatonNode productAutomatonNode) {
+    public ProductAutomatonNode addProductAutomatonNode(ProductAutomatonNode productAutomatonNode) {
 
-        for (ProductAutomatonNode node : nodes) {
-            if (node.identifier.getValue0().identifier.equalsIgnoreCase(productAutomatonNode.identifier.getValue0().identifier) &&
-                    node.identifier.getValue1().identifier.equalsIgnoreCase(productAutomatonNode.identifier.getValue1().identifier) &&
-                    node.identifier.getValue2().identifier.equalsIgnoreCase(productAutomatonNode.identifier.getValue2().identifier))
-                return;
+        // the node itself is already part of the graph
+        if (productAutomatonNode.id >= 0 && productAutomatonNode.id < nodesById.size() && nodesById.get(productAutomatonNode.id) == productAutomatonNode) {
+            return productAutomatonNode;
         }
 
-        nodes.add(productAutomatonNode);
+        // another node with the same state is already part of the graph
+        ProductAutomatonNode node = getNodeByKey(productAutomatonNode.key);
+        if (node != null) {
+            return node;
+        }
+
+        productAutomatonNode.id = nodesById.size();
+        nodesById.add(productAutomatonNode);
+        nodeIds.put(productAutomatonNode.key, productAutomatonNode.id);
         if (productAutomatonNode.initialState) {
             initialNodes.add(productAutomatonNode);
         }
@@ -39,6 +75,27 @@ public class ProductAutomatonGraph {
         if (productAutomatonNode.finalState) {
             finalNodes.add(productAutomatonNode);
         }
+        return productAutomatonNode;
+    }
+
+    /**
+     * @param id the id of the node
+     * @return the node with this id
+     */
+    public ProductAutomatonNode getNode(int id) {
+        return nodesById.get(id);
+    }
+
+    /**
+     * @param key the encoded state (see ProductAutomatonConstructor.encode())
+     * @return the node of this state, null if it is not part of the graph
+     */
+    public ProductAutomatonNode getNodeByKey(long key) {
+        if (nodeIds == null) {
+            throw new IllegalStateException("the productAutomatonGraph is frozen, nodes can only be looked up by their id.");
+        }
+        int id = nodeIds.get(key);
+        return id < 0 ? null : nodesById.get(id);
     }
 
     /**
@@ -50,23 +107,141 @@ public class ProductAutomatonGraph {
      * @param outgoing the replacement of the incoming string
      * @param cost     the cost of the replacement operation
      */
-    public void addProductAutomatonEdge(ProductAutomatonNode source, ProductAutomatonNode target, String incoming, String outgoing, Double cost) {
+    public void addProductAutomatonEdge(ProductAutomatonNode source, ProductAutomatonNode target, String incoming, String outgoing, double cost) {
 
         // add the nodes of the edge first
-        addProductAutomatonNode(source);
-        addProductAutomatonNode(target);
-
-        // check whether the edge is already there
-        for (ProductAutomatonEdge edge : source.edges) {
-            if (edge.source == source && edge.target == target
-                    && edge.incomingString.equalsIgnoreCase(incoming)
-                    && edge.outgoingString.equalsIgnoreCase(outgoing)
-                    && edge.cost == cost) {
-                return;
+        source = addProductAutomatonNode(source);
+        target = addProductAutomatonNode(target);
+
+        // if the edge is new -> add it. the edge object is only created then, with the shared lower case labels.
+        int incomingLabel = labelId(incoming);
+        int outgoingLabel = labelId(outgoing);
+        if (addEdgeKey(source, target, incomingLabel, outgoingLabel, cost)) {
+            source.edges.add(new ProductAutomatonEdge(source, target, labels.get(incomingLabel), labels.get(outgoingLabel), cost));
+        }
+    }
+
+    /**
+     * adds an edge that was created outside of the graph (parallel construction).
+     * the edge object itself is added if its nodes are part of the graph, otherwise it is recreated with the nodes of the graph.
+     *
+     * @param edge the edge
+     */
+    void addProductAutomatonEdge(ProductAutomatonEdge edge) {
+        ProductAutomatonNode source = addProductAutomatonNode(edge.source);
+        ProductAutomatonNode target = addProductAutomatonNode(edge.target);
+        if (source != edge.source || target != edge.target) {
+            edge = new ProductAutomatonEdge(source, target, edge.incomingString, edge.outgoingString, edge.cost);
+        }
+
+        if (addEdgeKey(source, target, labelId(edge.incomingString), labelId(edge.outgoingString), edge.cost)) {
+            source.edges.add(edge);
+        }
+    }
+
+    /**
+     * the duplicate check of the edges. an edge is packed into two numbers:
+     * (source id, target id) and (id of the label pair, id of the cost).
+     *
+     * @return true if the edge is new
+     */
+    private boolean addEdgeKey(ProductAutomatonNode source, ProductAutomatonNode target, int incomingLabel, int outgoingLabel, double cost) {
+        if (edgeKeys == null) {
+            throw new IllegalStateException("the productAutomatonGraph is frozen, no edges can be added.");
+        }
+        int labelPair = intern(labelPairIds, ((long) incomingLabel << 32) | outgoingLabel);
+        // + 0.0 turns -0.0 into 0.0, both are the same cost
+        int costId = intern(costIds, Double.doubleToLongBits(cost + 0.0));
+        return edgeKeys.add(((long) source.id << 32) | target.id, ((long) labelPair << 32) | costId);
+    }
+
+    // the id of key in ids, a new one if key is not known yet
+    private int intern(LongIntHashMap ids, long key) {
+        int id = ids.get(key);
+        if (id < 0) {
+            id = ids.size();
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    // the id of the label. toLowerCase() is only called for a spelling that is new.
+    private int labelId(String label) {
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            String lowerCase = label.toLowerCase();
+            id = labelIds.get(lowerCase);
+            if (id == null) {
+                id = labels.size();
+                labels.add(lowerCase);
+                labelIds.put(lowerCase, id);
             }
+            labelIds.put(label, id);
+        }
+        return id;
+    }
+
+    /**
+     * the graph is complete and csr holds all of its edges, the searches only use the csr from now on.
+     * the edge objects (node.edges is null afterwards) and the duplicate checks are dropped, no nodes or edges can be added anymore.
+     * nodesById, initialNodes and finalNodes stay as they are.
+     *
+     * @param csr the ProductAutomatonCSR of this graph
+     */
+    public void freeze(ProductAutomatonCSR csr) {
+        this.csr = csr;
+        for (ProductAutomatonNode node : nodesById) {
+            node.edges = null;
         }
-        // if the edge is new -> add it.
-        source.edges.add(new ProductAutomatonEdge(source, target, incoming, outgoing, cost));
+        nodeIds = null;
+        edgeKeys = null;
+        labelIds = null;
+        labels = null;
+        labelPairIds = null;
+        costIds = null;
+    }
+
+    /**
+     * removes every node whose id is not marked in keep, together with all edges from or to it.
+     * the remaining nodes get new ids (in the order of their old ids), so nodesById stays dense.
+     *
+     * @param keep keep[id] is true if the node with this id stays
+     * @return the number of removed edges
+     */
+    int retainNodes(boolean[] keep) {
+        ArrayList<ProductAutomatonNode> oldNodes = nodesById;
+        initialNodes = new HashSet<>();
+        finalNodes = new HashSet<>();
+        nodesById = new ArrayList<>();
+        nodeIds = new LongIntHashMap(oldNodes.size());
+        edgeKeys = new LongPairHashSet();
+
+        int numberOfRemovedEdges = 0;
+        for (ProductAutomatonNode node : oldNodes) {
+            boolean kept = keep[node.id];
+            node.id = -1;
+            if (kept) {
+                addProductAutomatonNode(node);
+            } else {
+                numberOfRemovedEdges += node.edges.size();
+                node.edges.clear();
+            }
+        }
+
+        // removed nodes have id -1 now
+        for (ProductAutomatonNode node : oldNodes) {
+            if (node.id < 0) {
+                continue;
+            }
+            int numberOfEdges = node.edges.size();
+            node.edges.removeIf(edge -> edge.target.id < 0);
+            numberOfRemovedEdges += numberOfEdges - node.edges.size();
+            // the ids have changed, so have the edge keys
+            for (ProductAutomatonEdge edge : node.edges) {
+                addEdgeKey(edge.source, edge.target, labelId(edge.incomingString), labelId(edge.outgoingString), edge.cost);
+            }
+        }
+        return numberOfRemovedEdges;
     }
 
     /**
@@ -75,9 +250,17 @@ public class ProductAutomatonGraph {
      * Use with caution! Bigger graphs might make debugging a little hard.
      */
     public void printGraph(){
-        for (ProductAutomatonNode node : nodes) {
-            for (ProductAutomatonEdge edge : node.edges ) {
-                edge.print();
+        for (ProductAutomatonNode node : nodesById) {
+            if (csr == null) {
+                for (ProductAutomatonEdge edge : node.edges) {
+                    edge.print();
+                }
+                continue;
+            }
+            // frozen: the edges are only part of the csr
+            for (int e = csr.offsets[node.id]; e < csr.offsets[node.id + 1]; e++) {
+                new ProductAutomatonEdge(node, getNode(csr.targets[e]), csr.getLabel(csr.incomingLabels[e]),
+                        csr.getLabel(csr.outgoingLabels[e]), csr.costs[e]).print();
             }
         }
     }
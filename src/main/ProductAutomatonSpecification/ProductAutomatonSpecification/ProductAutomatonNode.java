@@ -3,18 +3,29 @@ package ProductAutomatonSpecification;
 import Database.DatabaseNode;
 import Query.QueryNode;
 import Transducer.TransducerNode;
-import org.javatuples.Triplet;
 
 import java.util.LinkedList;
 
 public class ProductAutomatonNode implements Comparable<ProductAutomatonNode> {
 
-    public Triplet<QueryNode, TransducerNode, DatabaseNode> identifier;
+    public QueryNode queryNode;
+    public TransducerNode transducerNode;
+    public DatabaseNode databaseNode;
+
+    // the state (queryIdx, transducerIdx, databaseIdx) encoded as one number (see ProductAutomatonConstructor.encode())
+    public long key;
+    // dense id of the node inside its ProductAutomatonGraph, -1 as long as the node is not part of a graph
+    public int id = -1;
+
     public boolean initialState;
     public boolean finalState;
     public Double weight;
+    // null once the graph is frozen, its edges are part of the ProductAutomatonCSR then (see ProductAutomatonGraph.freeze())
     public LinkedList<ProductAutomatonEdge> edges;
 
+    // lazy construction only: true once the outgoing edges of this node have been generated.
+    boolean expanded;
+
     public ProductAutomatonNode() {
 
     }
@@ -30,7 +41,9 @@ public class ProductAutomatonNode implements Comparable<ProductAutomatonNode> {
      * @param finalState   boolean for being a final state
      */
     public ProductAutomatonNode(QueryNode qNode, TransducerNode tNode, DatabaseNode dNode, Boolean initialState, Boolean finalState) {
-        identifier = Triplet.with(qNode, tNode, dNode);
+        queryNode = qNode;
+        transducerNode = tNode;
+        databaseNode = dNode;
         this.initialState = initialState;
         this.finalState = finalState;
         setWeight(null);
@@ -50,14 +63,14 @@ public class ProductAutomatonNode implements Comparable<ProductAutomatonNode> {
     }
 
     public String toString() {
-        return String.format("(%s, %s, %s)", identifier.getValue0().identifier, identifier.getValue1().identifier, identifier.getValue2().identifier);
+        return String.format("(%s, %s, %s)", queryNode.identifier, transducerNode.identifier, databaseNode.identifier);
     }
 
     public String toStringWithWeight() {
         if (getWeight() == Double.POSITIVE_INFINITY) {
-            return String.format("(%s, %s, %s)[INF]", identifier.getValue0().identifier, identifier.getValue1().identifier, identifier.getValue2().identifier);
+            return String.format("(%s, %s, %s)[INF]", queryNode.identifier, transducerNode.identifier, databaseNode.identifier);
         } else
-        return String.format("(%s, %s, %s)[%s]", identifier.getValue0().identifier, identifier.getValue1().identifier, identifier.getValue2().identifier, getWeight());
+        return String.format("(%s, %s, %s)[%s]", queryNode.identifier, transducerNode.identifier, databaseNode.identifier, getWeight());
     }
 
     @Override
@@ -65,7 +78,7 @@ public class ProductAutomatonNode implements Comparable<ProductAutomatonNode> {
         return Double.compare(getWeight(), productAutomatonNode.getWeight());
     }
     public String getIdentifier(){
-        return String.format("%s|%s|%s", identifier.getValue0().identifier, identifier.getValue1().identifier, identifier.getValue2().identifier);
+        return String.format("%s|%s|%s", queryNode.identifier, transducerNode.identifier, databaseNode.identifier);
 
     }
 
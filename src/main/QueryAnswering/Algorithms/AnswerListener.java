@@ -0,0 +1,21 @@
+package Algorithms;
+
+/**
+ * receives the answers of a search as soon as they are known, instead of collecting them in the answerMap.
+ * <br/> --- <br/>
+ * a search emits the answer (source, target) once the first final state (q, t, target) leaves its queue, i.e. once its cost is final.
+ * one search per source, its answers arrive in the order of their cost (cheapest first). every answer arrives exactly once.
+ * <br/> --- <br/>
+ * with the parallel search (Settings.parallelSearch) the searches of several sources run at the same time,
+ * the listener is called from several threads and has to be thread-safe.
+ */
+@FunctionalInterface
+public interface AnswerListener {
+
+    /**
+     * @param source identifier of the databaseNode the answer starts in
+     * @param target identifier of the databaseNode the answer ends in
+     * @param cost   the cost of the cheapest path from source to target
+     */
+    void answer(String source, String target, double cost);
+}
@@ -0,0 +1,194 @@
+package Algorithms;
+
+import Database.DatabaseNode;
+import org.javatuples.Pair;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * the answers ((source, target), cost) of a search, without a Pair and a boxed Double per answer.
+ * <br/> --- <br/>
+ * primitive open-addressing hash map (linear probing) from the packed key (source.index, target.index) to the cost.
+ * several final states (q, t, d) and several initial states (q0, t0, s) give the same answer (s, d), the store keeps the cheapest cost (min-merge).
+ * the identifiers are only looked up again when the answers are handed out (see forEachByCost() and toAnswerMap()).
+ */
+public class AnswerStore {
+
+    // marks a free slot. the packed keys are never negative (the indices of the databaseNodes are).
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private double[] costs;
+    private int size;
+    private int mask;
+
+    // the occupied slots, sorted by their cost (see sortByCost()). null: not sorted yet or outdated.
+    private int[] order;
+
+    // databaseNode.index -> databaseNode, for every databaseNode that is part of an answer
+    private DatabaseNode[] databaseNodes;
+
+    public AnswerStore() {
+        allocate(16);
+        databaseNodes = new DatabaseNode[16];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        costs = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * adds the answer (source, target). if the answer is already known, the cheaper cost is kept.
+     *
+     * @param source the databaseNode the answer starts in
+     * @param target the databaseNode the answer ends in
+     * @param cost   the cost of the answer
+     */
+    public void add(DatabaseNode source, DatabaseNode target, double cost) {
+        remember(source);
+        remember(target);
+        add(((long) source.index << 32) | target.index, cost);
+    }
+
+    private void add(long key, double cost) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                if (cost < costs[slot]) {
+                    costs[slot] = cost;
+                    order = null;
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        costs[slot] = cost;
+        order = null;
+        size++;
+        if (size > LOAD_FACTOR * keys.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * adds every answer of other (e.g. the answers of a worker of the parallel search), the cheaper cost is kept.
+     */
+    public void addAll(AnswerStore other) {
+        for (DatabaseNode databaseNode : other.databaseNodes) {
+            if (databaseNode != null) {
+                remember(databaseNode);
+            }
+        }
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.costs[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * sorts the answers by their cost (cheapest first). only an int per answer, the store itself stays as it is.
+     */
+    public void sortByCost() {
+        if (order != null) {
+            return;
+        }
+        order = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                order[n++] = i;
+            }
+        }
+        sortByCost(order, new int[size], 0, size);
+    }
+
+    // merge sort of order[from, to) by the costs of the slots
+    private void sortByCost(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByCost(order, buffer, from, middle);
+        sortByCost(order, buffer, middle, to);
+
+        int i = from;
+        int j = middle;
+        int k = from;
+        while (i < middle && j < to) {
+            buffer[k++] = costs[order[j]] < costs[order[i]] ? order[j++] : order[i++];
+        }
+        while (i < middle) {
+            buffer[k++] = order[i++];
+        }
+        while (j < to) {
+            buffer[k++] = order[j++];
+        }
+        System.arraycopy(buffer, from, order, from, to - from);
+    }
+
+    /**
+     * hands out the answers sorted by their cost (cheapest first), straight from the store.
+     *
+     * @param listener receives the answers (source, target, cost)
+     */
+    public void forEachByCost(AnswerListener listener) {
+        sortByCost();
+        for (int slot : order) {
+            String source = databaseNodes[(int) (keys[slot] >>> 32)].identifier;
+            String target = databaseNodes[(int) keys[slot]].identifier;
+            listener.answer(source, target, costs[slot]);
+        }
+    }
+
+    /**
+     * @return the answers in the form ((source, target), cost)
+     */
+    public HashMap<Pair<String, String>, Double> toAnswerMap() {
+        HashMap<Pair<String, String>, Double> answerMap = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                String source = databaseNodes[(int) (keys[i] >>> 32)].identifier;
+                String target = databaseNodes[(int) keys[i]].identifier;
+                answerMap.put(new Pair<>(source, target), costs[i]);
+            }
+        }
+        return answerMap;
+    }
+
+    private void remember(DatabaseNode databaseNode) {
+        if (databaseNode.index >= databaseNodes.length) {
+            databaseNodes = Arrays.copyOf(databaseNodes, Math.max(databaseNode.index + 1, databaseNodes.length * 2));
+        }
+        databaseNodes[databaseNode.index] = databaseNode;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        double[] oldCosts = costs;
+        allocate(keys.length << 1);
+        order = null;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldCosts[i]);
+            }
+        }
+    }
+
+    // fibonacci hashing, spreads consecutive keys over the whole table
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,189 @@
+package Algorithms;
+
+import java.util.Arrays;
+
+/**
+ * bucket queue (Dial's algorithm) for small non-negative integer costs.
+ * <br/> --- <br/>
+ * if every edge costs at most C, all keys inside the queue of a dijkstra run lie in [min, min + C].
+ * we therefore only need C + 1 buckets which we use in a circular way: key x lies in bucket x mod (C + 1).
+ * every bucket is a doubly linked list over the ids, so insert, decreaseKey and contains are O(1).
+ * poll walks forward from the bucket of the last minimum. in total this walk is O(largest distance + C) per run.
+ * <br/> --- <br/>
+ * keys have to be integers (stored as double) and must not be smaller than the last polled key (monotone queue).
+ * the key infinity (unreached nodes) is kept in an extra bucket that is only used once every other bucket is empty.
+ */
+public class BucketQueue implements SearchQueue {
+
+    // more buckets than this make the circular walk too expensive, the heap is the better choice then.
+    public static final int MAX_NUMBER_OF_BUCKETS = 1 << 16;
+
+    private static final int NOT_CONTAINED = -1;
+    private static final int NONE = -1;
+
+    private final int numberOfBuckets;
+    private final int infiniteBucket;
+
+    // first id of every bucket (NONE if empty), the last entry is the infinite bucket
+    private final int[] head;
+    // doubly linked lists over the ids
+    private int[] next;
+    private int[] previous;
+    // bucket of every id, NOT_CONTAINED if the id is not part of the queue
+    private int[] bucketOf;
+    private double[] keys;
+
+    // key of the bucket the walk in poll() is at (the smallest key that can still be in the queue)
+    private long current;
+    private int size;
+    private int finiteSize;
+
+    /**
+     * @param capacity    the expected number of ids
+     * @param maximumCost the largest cost of an edge
+     */
+    public BucketQueue(int capacity, int maximumCost) {
+        if (maximumCost < 0 || maximumCost >= MAX_NUMBER_OF_BUCKETS) {
+            throw new IllegalArgumentException("maximum cost has to be in [0, " + (MAX_NUMBER_OF_BUCKETS - 1) + "]: " + maximumCost);
+        }
+        numberOfBuckets = maximumCost + 1;
+        infiniteBucket = numberOfBuckets;
+        head = new int[numberOfBuckets + 1];
+        Arrays.fill(head, NONE);
+
+        capacity = Math.max(capacity, 16);
+        next = new int[capacity];
+        previous = new int[capacity];
+        bucketOf = new int[capacity];
+        Arrays.fill(bucketOf, NOT_CONTAINED);
+        keys = new double[capacity];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id < bucketOf.length && bucketOf[id] != NOT_CONTAINED;
+    }
+
+    @Override
+    public void insert(int id, double key) {
+        if (contains(id)) {
+            throw new IllegalStateException("id is already part of the queue: " + id);
+        }
+        ensureCapacity(id + 1);
+        keys[id] = key;
+        link(id, bucket(key));
+        size++;
+    }
+
+    @Override
+    public void decreaseKey(int id, double key) {
+        if (!contains(id)) {
+            throw new IllegalStateException("id is not part of the queue: " + id);
+        }
+        if (key < keys[id]) {
+            int newBucket = bucket(key);
+            unlink(id);
+            keys[id] = key;
+            link(id, newBucket);
+        }
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("the queue is empty");
+        }
+        int b;
+        if (finiteSize > 0) {
+            b = (int) (current % numberOfBuckets);
+            while (head[b] == NONE) {
+                current++;
+                b = (int) (current % numberOfBuckets);
+            }
+        } else {
+            b = infiniteBucket;
+        }
+        int id = head[b];
+        unlink(id);
+        size--;
+        return id;
+    }
+
+    @Override
+    public void clear() {
+        for (int b = 0; b <= numberOfBuckets; b++) {
+            for (int id = head[b]; id != NONE; id = next[id]) {
+                bucketOf[id] = NOT_CONTAINED;
+            }
+            head[b] = NONE;
+        }
+        current = 0;
+        size = 0;
+        finiteSize = 0;
+    }
+
+    private int bucket(double key) {
+        if (key == Double.POSITIVE_INFINITY) {
+            return infiniteBucket;
+        }
+        if (key != Math.rint(key)) {
+            throw new IllegalArgumentException("the bucket queue only supports integer keys: " + key);
+        }
+        if (key < current || key >= current + numberOfBuckets) {
+            throw new IllegalArgumentException("key " + key + " is outside of [" + current + ", " + (current + numberOfBuckets - 1) + "]");
+        }
+        return (int) ((long) key % numberOfBuckets);
+    }
+
+    private void link(int id, int b) {
+        bucketOf[id] = b;
+        previous[id] = NONE;
+        next[id] = head[b];
+        if (head[b] != NONE) {
+            previous[head[b]] = id;
+        }
+        head[b] = id;
+        if (b != infiniteBucket) {
+            finiteSize++;
+        }
+    }
+
+    private void unlink(int id) {
+        int b = bucketOf[id];
+        if (previous[id] != NONE) {
+            next[previous[id]] = next[id];
+        } else {
+            head[b] = next[id];
+        }
+        if (next[id] != NONE) {
+            previous[next[id]] = previous[id];
+        }
+        bucketOf[id] = NOT_CONTAINED;
+        if (b != infiniteBucket) {
+            finiteSize--;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= bucketOf.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, bucketOf.length * 2);
+        next = Arrays.copyOf(next, newCapacity);
+        previous = Arrays.copyOf(previous, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        int oldCapacity = bucketOf.length;
+        bucketOf = Arrays.copyOf(bucketOf, newCapacity);
+        Arrays.fill(bucketOf, oldCapacity, newCapacity, NOT_CONTAINED);
+    }
+}
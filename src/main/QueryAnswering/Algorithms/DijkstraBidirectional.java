@@ -0,0 +1,162 @@
+package Algorithms;
+
+import Application.Settings;
+import ProductAutomatonSpecification.ProductAutomatonCSR;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+import ProductAutomatonSpecification.ProductAutomatonNode;
+import org.javatuples.Pair;
+
+import java.util.HashMap;
+
+/**
+ * point-to-point query: the cheapest cost of the answer (source, target) only.
+ * <br/> --- <br/>
+ * bidirectional dijkstra. the forward search starts in the initial states (q0, t0, source) and follows the edges of the productAutomaton,
+ * the backward search starts in the final states (qf, tf, target) and follows the reversed edges (see ProductAutomatonCSR.buildReverse()).
+ * both searches take turns, the one with the smaller queue goes next.
+ * whenever an edge leads to a node the other search has already reached, the two paths are joined and give a candidate for the answer.
+ * <br/> --- <br/>
+ * once the distances of the last nodes that left the two queues add up to the best candidate, no path through an unsettled node can beat it and we stop.
+ * in the best case both searches only explore a small ball around source and target instead of everything that can be reached from source.
+ * <br/> --- <br/>
+ * the backward search needs every edge that points to a node, so the productAutomaton has to be constructed (no lazy construction).
+ * the part that can be reached from source is enough (see StatsTrackerPointToPoint), the reversed edges then only cover this part.
+ */
+public class DijkstraBidirectional {
+
+    ProductAutomatonConstructor productAutomatonConstructor;
+
+    // d[V], π[V] and Q of the forward search (from source) and of the backward search (from target)
+    SearchSpace forwardSearchSpace;
+    SearchSpace backwardSearchSpace;
+
+    // cost of the cheapest path from source to target found so far
+    double bestCost;
+
+    // answerSet, contains (source, target) if target can be reached
+    HashMap<Pair<String, String>, Double> answerMap;
+
+    int dijkstracounter = 0;
+
+    public DijkstraBidirectional(ProductAutomatonConstructor productAutomatonConstructor) {
+        this.productAutomatonConstructor = productAutomatonConstructor;
+        forwardSearchSpace = new SearchSpace(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+        backwardSearchSpace = new SearchSpace(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+        answerMap = new HashMap<>();
+    }
+
+    /**
+     * @param source identifier of the databaseNode the paths start in
+     * @param target identifier of the databaseNode the paths end in
+     * @return ((source, target), cost) if there is a path from source to target, an empty map otherwise
+     */
+    public HashMap<Pair<String, String>, Double> processPointToPoint(String source, String target) {
+        if (productAutomatonConstructor.lazy) {
+            throw new IllegalStateException("the bidirectional search needs the complete productAutomaton, the lazy construction does not provide the reversed edges.");
+        }
+        ProductAutomatonCSR csr = productAutomatonConstructor.productAutomatonCSR;
+        csr.buildReverse();
+
+        int numberOfNodes = productAutomatonConstructor.productAutomatonGraph.nodesById.size();
+        forwardSearchSpace.ensureCapacity(numberOfNodes);
+        backwardSearchSpace.ensureCapacity(numberOfNodes);
+        forwardSearchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, numberOfNodes));
+        backwardSearchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, numberOfNodes));
+        forwardSearchSpace.reset();
+        backwardSearchSpace.reset();
+        bestCost = Double.POSITIVE_INFINITY;
+
+        // sources of the forward search: the initial states of source
+        for (ProductAutomatonNode initialNode : productAutomatonConstructor.productAutomatonGraph.initialNodes) {
+            if (initialNode.databaseNode.identifier.equals(source)) {
+                forwardSearchSpace.setDistance(initialNode.id, 0.0, -1);
+                forwardSearchSpace.queue.insert(initialNode.id, 0.0);
+            }
+        }
+        // sources of the backward search: the final states of target
+        for (ProductAutomatonNode finalNode : productAutomatonConstructor.productAutomatonGraph.finalNodes) {
+            if (finalNode.databaseNode.identifier.equals(target)) {
+                backwardSearchSpace.setDistance(finalNode.id, 0.0, -1);
+                backwardSearchSpace.queue.insert(finalNode.id, 0.0);
+                // a state that is initial and final at once
+                if (forwardSearchSpace.isReached(finalNode.id)) {
+                    bestCost = 0.0;
+                }
+            }
+        }
+
+        // distance of the last node that left the forward / backward queue
+        double forwardRadius = 0.0;
+        double backwardRadius = 0.0;
+
+        // if one of the queues runs empty, every path the other search could still find has been joined already.
+        while (!forwardSearchSpace.queue.isEmpty() && !backwardSearchSpace.queue.isEmpty()) {
+            dijkstracounter++;
+            boolean forward = forwardSearchSpace.queue.size() <= backwardSearchSpace.queue.size();
+            SearchSpace searchSpace = forward ? forwardSearchSpace : backwardSearchSpace;
+            SearchSpace otherSearchSpace = forward ? backwardSearchSpace : forwardSearchSpace;
+
+            int u = searchSpace.queue.poll();
+            if (forward) {
+                forwardRadius = searchSpace.getDistance(u);
+            } else {
+                backwardRadius = searchSpace.getDistance(u);
+            }
+            // every path that is not known yet leaves both balls, so it costs at least forwardRadius + backwardRadius.
+            if (forwardRadius + backwardRadius >= bestCost) {
+                break;
+            }
+
+            if (forward) {
+                // the outgoing edges of u are the entries offsets[u], ..., offsets[u + 1] - 1 of the CSR.
+                for (int e = csr.offsets[u]; e < csr.offsets[u + 1]; e++) {
+                    relax(searchSpace, otherSearchSpace, u, csr.targets[e], csr.costs[e]);
+                }
+            } else {
+                // the incoming edges of u are the entries reverseOffsets[u], ..., reverseOffsets[u + 1] - 1 of the reversed CSR.
+                for (int e = csr.reverseOffsets[u]; e < csr.reverseOffsets[u + 1]; e++) {
+                    relax(searchSpace, otherSearchSpace, u, csr.reverseSources[e], csr.reverseCosts[e]);
+                }
+            }
+        }
+
+        if (!Double.isInfinite(bestCost)) {
+            answerMap.put(new Pair<>(source, target), bestCost);
+        }
+
+        if (dijkstracounter > Settings.getMaxIterationStepsInDijkstraLoop()) {
+            Settings.setMaxIterationStepsInDijkstraLoop(dijkstracounter);
+        }
+        return answerMap;
+    }
+
+    /**
+     * relaxes the edge u -> v of one search (for the backward search the edge is reversed).
+     */
+    private void relax(SearchSpace searchSpace, SearchSpace otherSearchSpace, int u, int v, double cost) {
+
+        double newCost = searchSpace.getDistance(u) + cost;
+
+        // the other search has reached v: source -> u -> v -> target is a candidate.
+        if (otherSearchSpace.isReached(v)) {
+            bestCost = Math.min(bestCost, newCost + otherSearchSpace.getDistance(v));
+        }
+
+        boolean reached = searchSpace.isReached(v);
+        // v is settled, its distance is final and it never enters the queue again.
+        if (reached && !searchSpace.queue.contains(v)) {
+            return;
+        }
+
+        if (searchSpace.getDistance(v) > newCost) {
+            // predecessor of v is u.
+            searchSpace.setDistance(v, newCost, u);
+
+            if (searchSpace.queue.contains(v)) {
+                searchSpace.queue.decreaseKey(v, newCost);
+            } else {
+                searchSpace.queue.insert(v, newCost);
+            }
+        }
+    }
+}
@@ -1,42 +1,59 @@
 package Algorithms;
 
 import Application.Settings;
+import Database.DatabaseNode;
+import ProductAutomatonSpecification.LowerBoundHeuristic;
+import ProductAutomatonSpecification.ProductAutomatonCSR;
 import ProductAutomatonSpecification.ProductAutomatonConstructor;
 import ProductAutomatonSpecification.ProductAutomatonEdge;
-import ProductAutomatonSpecification.ProductAutomatonGraph;
 import ProductAutomatonSpecification.ProductAutomatonNode;
 import org.javatuples.Pair;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.util.LinkedHashMap;
+import java.util.List;
 
-// note: we do not use the distance here since we store the weight in every ProductAutomatonSpecification.ProductAutomatonNode.
+// note: the distances are not stored in the ProductAutomatonSpecification.ProductAutomatonNodes but in a SearchSpace over their ids.
 public class DijkstraClassic {
 
     ProductAutomatonConstructor productAutomatonConstructor;
 
 
-    // π[V] - predecessor of V: <V, predecessorOfV>
-    HashMap<ProductAutomatonNode, ProductAutomatonNode> predecessor;
+    // d[V], π[V] and the min-priority queue Q of the current run
+    SearchSpace searchSpace;
 
-    // set S of nodes (vertices) whose final shortest-path weights from the source have already been determined.
-    HashSet<ProductAutomatonNode> setOfNodes;
+    // true: the queue starts with the source only and nodes enter it once they are reached (always the case in lazy construction mode).
+    // false: the queue starts with every node of the productAutomatonGraph.
+    boolean lazyInsertion;
 
-    // min-priority queue Q (note that by default a priority queue in java is a min queue!)
-    PriorityQueue<ProductAutomatonNode> queue;
+    // A* only: lower bounds of the remaining cost of the nodes (see LowerBoundHeuristic). null: plain dijkstra.
+    LowerBoundHeuristic heuristic;
 
     // answerSet
     HashMap<Pair<String, String>, Double> answerMap;
 
+    // answers of the runs so far, the cheapest cost per (source, target). every worker of the parallel search has its own.
+    AnswerStore answerStore;
+
     int dijkstracounter = 0;
 
+    // streaming: receives every answer as soon as it is settled (see processStreaming()), nothing is collected in the answerMap. null otherwise.
+    public AnswerListener answerListener;
+    // identifier of the source of the current run (streaming only)
+    String currentSource;
+    // targetStamp[databaseNode.index] == run if the current run has emitted the answer of this database node already.
+    // several final states (q, t, d) share the same database node d and therefore the same answer.
+    int[] targetStamp = new int[16];
+    int run;
+
 
     public DijkstraClassic(ProductAutomatonConstructor productAutomatonConstructor) {
-        predecessor = new HashMap<>();
-        setOfNodes = new HashSet<>();
-        queue = new PriorityQueue<>();
+        searchSpace = new SearchSpace(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
         answerMap = new HashMap<>();
+        answerStore = new AnswerStore();
         this.productAutomatonConstructor = productAutomatonConstructor;
 
 
@@ -55,96 +72,177 @@ public class DijkstraClassic {
      */
 
     private void algo_dijkstra(ProductAutomatonNode sourceNode) {
-        //System.out.println("algo dijkstra");
+        algo_dijkstra(Collections.singletonList(sourceNode));
+    }
 
+    /**
+     * same as algo_dijkstra(sourceNode), but with several sources at distance 0 (the initial states of one databaseNode, see processStreaming()).
+     */
+    private void algo_dijkstra(List<ProductAutomatonNode> sourceNodes) {
+        //System.out.println("algo dijkstra");
+        run++;
+        currentSource = sourceNodes.get(0).databaseNode.identifier;
 
 
         // line 1
-        initialiseSingleSource(productAutomatonConstructor.productAutomatonGraph, sourceNode);
+        initialiseSingleSource(sourceNodes);
         // line 2
-        setOfNodes.clear();
+        // the set S is implicit: a node is in S once it left the queue.
         // line 3
-        queue.addAll(productAutomatonConstructor.productAutomatonGraph.nodes);
-        // todo: queue.remove(sourceNode)
-        //       queue.add(sourceNode)
-        //       to start with the source node??
+        if (lazyInsertion) {
+            for (ProductAutomatonNode sourceNode : sourceNodes) {
+                searchSpace.queue.insert(sourceNode.id, priority(sourceNode, 0.0));
+            }
+        } else {
+            for (ProductAutomatonNode node : productAutomatonConstructor.productAutomatonGraph.nodesById) {
+                searchSpace.queue.insert(node.id, priority(node, searchSpace.getDistance(node.id)));
+            }
+        }
         // System.out.println(queue);
 
         // line 4
-        // we need the second condition for a proper termination in possible infinite runs.
-        // the condition is chosen dynamically, i.e. for larger input structures it iterates more often.
-        // the infinite loop arises when we use "searchAll()" over an input that allows for loops with weight 0, thus dijkstra endlessly explores the "new" infinite path
-        while (!queue.isEmpty() && (dijkstracounter < Settings.getRestrictionToPreventInfiniteRuns())) {
+        // every node leaves the queue at most once (see relax()), so this terminates even if there are cycles of cost 0.
+        while (!searchSpace.queue.isEmpty()) {
             dijkstracounter++;
             //System.out.println(dijkstracounter);
 
             // line 5
-            ProductAutomatonNode p = queue.poll();
+            ProductAutomatonNode p = productAutomatonConstructor.productAutomatonGraph.getNode(searchSpace.queue.poll());
             // todo: if p has larger weight: return "threshold is reached"
-            // line 6
-            setOfNodes.add(p);
+            // p is settled. the first final state of a database node that is settled gives its answer.
+            if (answerListener != null && p.finalState && searchSpace.isReached(p.id) && settleTarget(p)) {
+                answerListener.answer(currentSource, p.databaseNode.identifier, searchSpace.getDistance(p.id));
+            }
             // line 7
-            for (ProductAutomatonEdge edge : p.edges) {
-                setOfNodes.add(edge.target);
-                // line 8
-                relax(p, edge.target, edge);
-
-                // this will keep the priorityQueue ordered.
-                queue.remove(edge.target);
-                queue.add(edge.target);
-
+            if (productAutomatonConstructor.lazy) {
+                for (ProductAutomatonEdge edge : productAutomatonConstructor.getOutgoingEdges(p)) {
+                    visitEdge(p, edge.target, edge.cost);
+                }
+            } else {
+                // the outgoing edges of p are the entries offsets[p.id], ..., offsets[p.id + 1] - 1 of the CSR.
+                ProductAutomatonCSR csr = productAutomatonConstructor.productAutomatonCSR;
+                for (int e = csr.offsets[p.id]; e < csr.offsets[p.id + 1]; e++) {
+                    visitEdge(p, productAutomatonConstructor.productAutomatonGraph.getNode(csr.targets[e]), csr.costs[e]);
+                }
             }
         }
     }
 
-    private void initialiseSingleSource(ProductAutomatonGraph graph, ProductAutomatonNode sourceNode) {
+    private void visitEdge(ProductAutomatonNode p, ProductAutomatonNode target, double cost) {
+        // line 8
+        relax(p, target, cost);
+    }
+
+    /**
+     * key of a node in the queue. dijkstra: its distance. A*: its distance + the lower bound of its remaining cost.
+     * the lower bound of a final node is 0, so final nodes leave the queue in the order of their distance either way.
+     */
+    private double priority(ProductAutomatonNode node, double distance) {
+        return heuristic == null ? distance : distance + heuristic.getLowerBound(node);
+    }
 
-        // line 1.1
-        for (ProductAutomatonNode node : graph.nodes) {
+    /**
+     * marks the database node of the final state p as settled in the current run.
+     *
+     * @return true if it was not settled before, i.e. p gives a new answer
+     */
+    private boolean settleTarget(ProductAutomatonNode p) {
+        int index = p.databaseNode.index;
+        if (index >= targetStamp.length) {
+            targetStamp = Arrays.copyOf(targetStamp, Math.max(index + 1, targetStamp.length * 2));
+        }
+        if (targetStamp[index] == run) {
+            return false;
+        }
+        targetStamp[index] = run;
+        return true;
+    }
 
-            // line 1.2
-            node.setWeight(Double.POSITIVE_INFINITY);
+    private void initialiseSingleSource(List<ProductAutomatonNode> sourceNodes) {
 
-            // line 1.3
-            predecessor.put(node, null);
+        // line 1.1 - 1.3
+        // every node gets distance infinity and no predecessor.
+        // with lazy insertion a new epoch does this at once, otherwise we sweep over all nodes.
+        if (lazyInsertion) {
+            searchSpace.reset();
+        } else {
+            searchSpace.clear();
         }
         // line 1.4
-        sourceNode.setWeight(0.0);
+        for (ProductAutomatonNode sourceNode : sourceNodes) {
+            searchSpace.setDistance(sourceNode.id, 0.0, -1);
+        }
     }
 
-    private void relax(ProductAutomatonNode u, ProductAutomatonNode v, ProductAutomatonEdge edge) {
+    private void relax(ProductAutomatonNode u, ProductAutomatonNode v, double cost) {
 
-        Double newCost = u.getWeight() + edge.cost;
+        double newCost = searchSpace.getDistance(u.id) + cost;
+        // A*: infinite if v cannot reach a final state, such a node is never needed.
+        double key = priority(v, newCost);
 
-        // line 8.1
-        if (v.getWeight() >= newCost && !newCost.isInfinite()) {
+        boolean reached = searchSpace.isReached(v.id);
+        // v was reached but is not in the queue anymore, i.e. it is settled. its distance is final and it never enters the queue again.
+        if (reached && !searchSpace.queue.contains(v.id)) {
+            return;
+        }
 
-            // line 8.2
-            v.setWeight(newCost);
+        // line 8.1
+        if (searchSpace.getDistance(v.id) >= newCost && !Double.isInfinite(key)) {
 
-            // line 8.3
+            // line 8.2 and 8.3
             // predecessor of v is u.
-            predecessor.put(v, u);
+            searchSpace.setDistance(v.id, newCost, u.id);
 
+            // keep the queue ordered. v is either still waiting in the queue (decrease its key) or it has not been reached yet (lazy insertion).
+            if (searchSpace.queue.contains(v.id)) {
+                searchSpace.queue.decreaseKey(v.id, key);
+            } else if (!reached) {
+                searchSpace.queue.insert(v.id, key);
+            }
         }
 
     }
 
     public HashMap<Pair<String, String>, Double> processDijkstraOverAllInitialNodes() {
+        answerMap = processDijkstraIntoAnswerStore().toAnswerMap();
+        // the answers are in the answerMap now, the store is not needed anymore.
+        answerStore = new AnswerStore();
+        return answerMap;
+    }
+
+    /**
+     * processDijkstraOverAllInitialNodes() without the answerMap: the answers stay in the primitive answerStore,
+     * no Pair and no boxed Double is created per answer (see AnswerStore.forEachByCost()).
+     *
+     * @return the answers of all runs, empty if they were streamed to the answerListener
+     */
+    public AnswerStore processDijkstraIntoAnswerStore() {
+        lazyInsertion = productAutomatonConstructor.lazy || Settings.isLazyInsertion();
+        heuristic = Settings.isAStar() ? productAutomatonConstructor.getLowerBoundHeuristic() : null;
+        searchSpace.ensureCapacity(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+        searchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, productAutomatonConstructor.productAutomatonGraph.nodesById.size()));
+
+        if (answerListener != null) {
+            processStreaming();
+            return answerStore;
+        }
+
+        // the workers of the parallel search need a complete productAutomatonGraph
+        if (Settings.isParallelSearch() && !productAutomatonConstructor.lazy) {
+            processInParallel();
+            return answerStore;
+        }
         int initialNodeCounter = 0;
+        List<ProductAutomatonNode> initialNodes = productAutomatonConstructor.getSourceNodes();
 
 
         // for all initial nodes...
-        for (ProductAutomatonNode initialNode : productAutomatonConstructor.productAutomatonGraph.initialNodes) {
-            System.out.println("number of initial nodes: " + productAutomatonConstructor.productAutomatonGraph.initialNodes.size() + " already visited: " + initialNodeCounter);
+        for (ProductAutomatonNode initialNode : initialNodes) {
+            System.out.println("number of initial nodes: " + initialNodes.size() + " already visited: " + initialNodeCounter);
             initialNodeCounter++;
             //System.out.print("dijkstra for initial node: " );
             //initialNode.print();
 
-            // clean up from previous runs...
-            predecessor.clear();
-            queue.clear();
-
             // run single-source dijkstra
             algo_dijkstra(initialNode);
             // put the new shortest-paths into the answer set
@@ -159,19 +257,84 @@ public class DijkstraClassic {
 
         }
 
-        return answerMap;
+        return answerStore;
+
+    }
+
+    /**
+     * processDijkstraIntoAnswerStore() on several threads (see ParallelSearch).
+     * every worker is a DijkstraClassic of its own that collects its answers in its own answerStore, they are merged at the end.
+     * if several searches find the same (source, target) pair, the cheapest weight is kept.
+     */
+    private void processInParallel() {
+        List<DijkstraClassic> workers = ParallelSearch.run(productAutomatonConstructor.getSourceNodes(), () -> {
+            DijkstraClassic worker = new DijkstraClassic(productAutomatonConstructor);
+            worker.lazyInsertion = lazyInsertion;
+            worker.heuristic = heuristic;
+            worker.searchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, productAutomatonConstructor.productAutomatonGraph.nodesById.size()));
+            return worker;
+        }, (worker, initialNode) -> {
+            // run single-source dijkstra
+            worker.algo_dijkstra(initialNode);
+            // put the new shortest-paths into the answer set
+            worker.retrieveResultForOneInitialNode(initialNode);
+        });
+
+        for (DijkstraClassic worker : workers) {
+            answerStore.addAll(worker.answerStore);
+            dijkstracounter += worker.dijkstracounter;
+        }
+        if (dijkstracounter > Settings.getMaxIterationStepsInDijkstraLoop()) {
+            Settings.setMaxIterationStepsInDijkstraLoop(dijkstracounter);
+        }
+    }
 
+    /**
+     * streaming variant of processDijkstraOverAllInitialNodes(): every answer goes to the answerListener as soon as it is settled.
+     * the initial states of a databaseNode are searched together (one run with all of them as sources),
+     * so every answer (source, target) is emitted exactly once and the answers of a source arrive in the order of their cost.
+     * the answerStore (and the answerMap) stays empty.
+     */
+    private void processStreaming() {
+        // databaseNode -> its initial states
+        LinkedHashMap<DatabaseNode, List<ProductAutomatonNode>> sourceNodes = new LinkedHashMap<>();
+        for (ProductAutomatonNode initialNode : productAutomatonConstructor.getSourceNodes()) {
+            sourceNodes.computeIfAbsent(initialNode.databaseNode, d -> new ArrayList<>()).add(initialNode);
+        }
+
+        if (Settings.isParallelSearch() && !productAutomatonConstructor.lazy) {
+            List<DijkstraClassic> workers = ParallelSearch.run(sourceNodes.values(), () -> {
+                DijkstraClassic worker = new DijkstraClassic(productAutomatonConstructor);
+                worker.lazyInsertion = lazyInsertion;
+                worker.heuristic = heuristic;
+                worker.searchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, productAutomatonConstructor.productAutomatonGraph.nodesById.size()));
+                worker.answerListener = answerListener;
+                return worker;
+            }, DijkstraClassic::algo_dijkstra);
+            for (DijkstraClassic worker : workers) {
+                dijkstracounter += worker.dijkstracounter;
+            }
+        } else {
+            for (List<ProductAutomatonNode> initialNodes : sourceNodes.values()) {
+                algo_dijkstra(initialNodes);
+            }
+        }
+
+        if (dijkstracounter > Settings.getMaxIterationStepsInDijkstraLoop()) {
+            Settings.setMaxIterationStepsInDijkstraLoop(dijkstracounter);
+        }
     }
 
     private void retrieveResultForOneInitialNode(ProductAutomatonNode initialNode) {
 
-        // for all nodes in set S
-        for (ProductAutomatonNode node : setOfNodes) {
-            // if you are a final state and your weight is not infinite (that means there is a path from the source to you)
-            if (node.finalState && !node.getWeight().isInfinite()) {
-                // I add you to the final answerSet in the form of ((source, target), weight)
-                Pair<String, String> answerPair = new Pair(initialNode.identifier.getValue2().identifier, node.identifier.getValue2().identifier);
-                answerMap.put(answerPair, node.getWeight());
+        // for all nodes that were reached (i.e. their weight is not infinite, there is a path from the source to them)
+        for (int i = 0; i < searchSpace.getNumberOfReached(); i++) {
+            ProductAutomatonNode node = productAutomatonConstructor.productAutomatonGraph.getNode(searchSpace.getReached(i));
+            // if you are a final state
+            if (node.finalState) {
+                // I add you to the final answerSet in the form of ((source, target), weight).
+                // several final states share the same databaseNode, the cheapest one is kept.
+                answerStore.add(initialNode.databaseNode, node.databaseNode, searchSpace.getDistance(node.id));
             }
         }
     }
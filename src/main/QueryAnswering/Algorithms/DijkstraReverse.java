@@ -0,0 +1,124 @@
+package Algorithms;
+
+import Application.Settings;
+import ProductAutomatonSpecification.ProductAutomatonCSR;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+import ProductAutomatonSpecification.ProductAutomatonNode;
+import org.javatuples.Pair;
+
+import java.util.HashMap;
+
+/**
+ * target-bound query: every source that reaches a fixed target, i.e. all answers (source, target) for one target.
+ * <br/> --- <br/>
+ * instead of one dijkstra per initial node (and throwing away every answer with another target) we run a single dijkstra backwards:
+ * it starts in all final states (qf, tf, target) at once and follows the reversed edges of the productAutomaton (see ProductAutomatonCSR.buildReverse()).
+ * the distance of a node is then the cost of the cheapest path from this node to the target.
+ * an initial state (q0, t0, d) that is settled gives the answer (d, target), the first initial state of d that is settled is the cheapest one.
+ * <br/> --- <br/>
+ * with a threshold only the answers cheaper than the threshold are computed, the search stops as soon as the queue reaches it.
+ * <br/> --- <br/>
+ * the backward search needs every edge that points to a node, so the productAutomaton has to be complete (no lazy construction).
+ */
+public class DijkstraReverse {
+
+    ProductAutomatonConstructor productAutomatonConstructor;
+
+    // d[V], π[V] and Q of the backward search. π[v] is the successor of v on the cheapest path to the target.
+    SearchSpace searchSpace;
+
+    // answerSet
+    HashMap<Pair<String, String>, Double> answerMap;
+
+    int dijkstracounter = 0;
+
+    // threshold value, infinity: no threshold
+    double threshold;
+
+    public DijkstraReverse(ProductAutomatonConstructor productAutomatonConstructor, double threshold) {
+        this.productAutomatonConstructor = productAutomatonConstructor;
+        this.threshold = threshold;
+        searchSpace = new SearchSpace(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+        answerMap = new HashMap<>();
+    }
+
+    /**
+     * @param target identifier of the databaseNode the paths end in
+     * @return ((source, target), cost) for every source that reaches target (cheaper than the threshold)
+     */
+    public HashMap<Pair<String, String>, Double> processDijkstraFromTarget(String target) {
+        if (productAutomatonConstructor.lazy) {
+            throw new IllegalStateException("the reverse search needs the complete productAutomaton, the lazy construction does not provide the reversed edges.");
+        }
+        ProductAutomatonCSR csr = productAutomatonConstructor.productAutomatonCSR;
+        csr.buildReverse();
+
+        int numberOfNodes = productAutomatonConstructor.productAutomatonGraph.nodesById.size();
+        searchSpace.ensureCapacity(numberOfNodes);
+        searchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, numberOfNodes));
+        searchSpace.reset();
+
+        // sources of the backward search: the final states of target
+        for (ProductAutomatonNode finalNode : productAutomatonConstructor.productAutomatonGraph.finalNodes) {
+            if (finalNode.databaseNode.identifier.equals(target)) {
+                searchSpace.setDistance(finalNode.id, 0.0, -1);
+                searchSpace.queue.insert(finalNode.id, 0.0);
+            }
+        }
+
+        // every node leaves the queue at most once (see relax()), so this terminates even if there are cycles of cost 0.
+        while (!searchSpace.queue.isEmpty()) {
+            dijkstracounter++;
+            int v = searchSpace.queue.poll();
+            double distance = searchSpace.getDistance(v);
+            if (distance >= threshold) {
+                break;
+            }
+
+            ProductAutomatonNode node = productAutomatonConstructor.productAutomatonGraph.getNode(v);
+            if (node.initialState && productAutomatonConstructor.isSource(node.databaseNode)) {
+                // the nodes leave the queue in the order of their distance, an earlier initial state of the same source was cheaper.
+                answerMap.putIfAbsent(new Pair<>(node.databaseNode.identifier, target), distance);
+            }
+
+            // the incoming edges of v are the entries reverseOffsets[v], ..., reverseOffsets[v + 1] - 1 of the reversed CSR.
+            for (int e = csr.reverseOffsets[v]; e < csr.reverseOffsets[v + 1]; e++) {
+                relax(v, csr.reverseSources[e], csr.reverseCosts[e]);
+            }
+        }
+
+        if (dijkstracounter > Settings.getMaxIterationStepsInDijkstraLoop()) {
+            Settings.setMaxIterationStepsInDijkstraLoop(dijkstracounter);
+        }
+        return answerMap;
+    }
+
+    /**
+     * relaxes the edge u -> v, i.e. the cheapest path from u to the target may start with this edge.
+     */
+    private void relax(int v, int u, double cost) {
+
+        double newCost = searchSpace.getDistance(v) + cost;
+        // will only be computed if the threshold won't be reached.
+        if (newCost >= threshold) {
+            return;
+        }
+
+        boolean reached = searchSpace.isReached(u);
+        // u is settled, its distance is final and it never enters the queue again.
+        if (reached && !searchSpace.queue.contains(u)) {
+            return;
+        }
+
+        if (searchSpace.getDistance(u) > newCost) {
+            // successor of u is v.
+            searchSpace.setDistance(u, newCost, v);
+
+            if (searchSpace.queue.contains(u)) {
+                searchSpace.queue.decreaseKey(u, newCost);
+            } else {
+                searchSpace.queue.insert(u, newCost);
+            }
+        }
+    }
+}
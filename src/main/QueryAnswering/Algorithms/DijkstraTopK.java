@@ -1,139 +1,203 @@
 package Algorithms;
 
 import Application.Settings;
+import ProductAutomatonSpecification.LowerBoundHeuristic;
+import ProductAutomatonSpecification.ProductAutomatonCSR;
 import ProductAutomatonSpecification.ProductAutomatonConstructor;
 import ProductAutomatonSpecification.ProductAutomatonEdge;
-import ProductAutomatonSpecification.ProductAutomatonGraph;
 import ProductAutomatonSpecification.ProductAutomatonNode;
 import org.javatuples.Pair;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.util.List;
 
 public class DijkstraTopK {
 
     ProductAutomatonConstructor productAutomatonConstructor;
 
 
-    // π[V] - predecessor of V: <V, predecessorOfV>
-    HashMap<ProductAutomatonNode, ProductAutomatonNode> predecessor;
+    // d[V], π[V] and the min-priority queue Q of the current run
+    SearchSpace searchSpace;
 
-    // set S of nodes (vertices) whose final shortest-path weights from the source have already been determined.
-    HashSet<ProductAutomatonNode> setOfNodes;
+    // true: the queue starts with the source only and nodes enter it once they are reached (always the case in lazy construction mode).
+    // false: the queue starts with every node of the productAutomatonGraph.
+    boolean lazyInsertion;
 
-    // min-priority queue Q (note that by default a priority queue in java is a min queue!)
-    PriorityQueue<ProductAutomatonNode> queue;
+    // A* only: lower bounds of the remaining cost of the nodes (see LowerBoundHeuristic). null: plain dijkstra.
+    LowerBoundHeuristic heuristic;
 
     // answerSet
     HashMap<Pair<String, String>, Double> answerMap;
 
+    // the k best answers over all initial nodes so far. shared by the workers of the parallel search.
+    TopKAnswers topKAnswers;
+
     // int value k for topK search
     int k;
 
     int dijkstracounter = 0;
 
+    // number of distinct database nodes the current run has settled in a final state so far (i.e. its answers, all of them optimal)
+    int targetsSettled;
+    // targetStamp[databaseNode.index] == run if the current run has settled this database node in a final state already.
+    // several final states (q, t, d) share the same database node d and therefore the same answer.
+    int[] targetStamp = new int[16];
+    int run;
+
     public DijkstraTopK(ProductAutomatonConstructor productAutomatonConstructor, int k) {
-        predecessor = new HashMap<>();
-        setOfNodes = new HashSet<>();
-        queue = new PriorityQueue<>();
+        searchSpace = new SearchSpace(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
         answerMap = new HashMap<>();
         this.productAutomatonConstructor = productAutomatonConstructor;
         this.k = k;
+        topKAnswers = new TopKAnswers(k);
 
     }
 
 
     private void algo_dijkstra(ProductAutomatonNode sourceNode) {
 
-        int finalNodesFound = 0;
+        targetsSettled = 0;
+        run++;
 
         // line 1
-        initialiseSingleSource(productAutomatonConstructor.productAutomatonGraph, sourceNode);
+        initialiseSingleSource(sourceNode);
         // line 2
-        setOfNodes.clear();
+        // the set S is implicit: a node is in S once it left the queue.
         // line 3
-        queue.addAll(productAutomatonConstructor.productAutomatonGraph.nodes);
+        if (lazyInsertion) {
+            searchSpace.queue.insert(sourceNode.id, priority(sourceNode, 0.0));
+        } else {
+            for (ProductAutomatonNode node : productAutomatonConstructor.productAutomatonGraph.nodesById) {
+                searchSpace.queue.insert(node.id, priority(node, searchSpace.getDistance(node.id)));
+            }
+        }
 
         // line 4
-        while (!queue.isEmpty() && (dijkstracounter < Settings.getRestrictionToPreventInfiniteRuns())) {
+        // every node leaves the queue at most once (see relax()), so this terminates even if there are cycles of cost 0.
+        while (!searchSpace.queue.isEmpty()) {
             dijkstracounter++;
             // line 5
-            ProductAutomatonNode p = queue.poll();
-            // line 6
-            setOfNodes.add(p);
+            ProductAutomatonNode p = productAutomatonConstructor.productAutomatonGraph.getNode(searchSpace.queue.poll());
+            // every answer this run can still find costs at least d[p] (A*: at least the key of p).
+            // if that is not below the k-th best answer found so far (by any run), this run cannot contribute anymore.
+            double distance = searchSpace.getDistance(p.id);
+            if (priority(p, distance) >= topKAnswers.getBound()) {
+                return;
+            }
+            // p is settled, i.e. d[p] is final. if p is a final state this is an answer.
+            // the first final state of a database node that is settled gives the optimal cost of the answer (source, databaseNode),
+            // later ones are the same answer again at the same or a higher cost.
+            if (p.finalState && settleTarget(p)) {
+                topKAnswers.offer(new Pair<>(sourceNode.databaseNode.identifier, p.databaseNode.identifier), distance);
+                // k optimal answers of this source are known. every other answer of this source costs at least as much.
+                if (++targetsSettled == k) {
+                    return;
+                }
+            }
             // line 7
-            for (ProductAutomatonEdge edge : p.edges) {
-                setOfNodes.add(edge.target);
-
-                // first check if we've found an answer (edge.target.finalState == true), then
-                // check if we've found k answers here. if so -> terminate
-                if (edge.target.finalState) {
-                    finalNodesFound++;
-                    if (finalNodesFound == k) {
-                        return;
-                    }
+            if (productAutomatonConstructor.lazy) {
+                for (ProductAutomatonEdge edge : productAutomatonConstructor.getOutgoingEdges(p)) {
+                    // line 8
+                    relax(p, edge.target, edge.cost);
+                }
+            } else {
+                // the outgoing edges of p are the entries offsets[p.id], ..., offsets[p.id + 1] - 1 of the CSR.
+                ProductAutomatonCSR csr = productAutomatonConstructor.productAutomatonCSR;
+                for (int e = csr.offsets[p.id]; e < csr.offsets[p.id + 1]; e++) {
+                    // line 8
+                    relax(p, productAutomatonConstructor.productAutomatonGraph.getNode(csr.targets[e]), csr.costs[e]);
                 }
-
-                // line 8
-                relax(p, edge.target, edge);
-
-                // this will keep the priorityQueue ordered.
-                queue.remove(edge.target);
-                queue.add(edge.target);
-
             }
         }
     }
 
+    /**
+     * marks the database node of the final state p as settled in the current run.
+     *
+     * @return true if it was not settled before, i.e. p gives a new answer
+     */
+    private boolean settleTarget(ProductAutomatonNode p) {
+        int index = p.databaseNode.index;
+        if (index >= targetStamp.length) {
+            targetStamp = Arrays.copyOf(targetStamp, Math.max(index + 1, targetStamp.length * 2));
+        }
+        if (targetStamp[index] == run) {
+            return false;
+        }
+        targetStamp[index] = run;
+        return true;
+    }
 
-    private void initialiseSingleSource(ProductAutomatonGraph graph, ProductAutomatonNode sourceNode) {
 
-        // line 1.1
-        for (ProductAutomatonNode node : graph.nodes) {
+    /**
+     * key of a node in the queue. dijkstra: its distance. A*: its distance + the lower bound of its remaining cost.
+     * the lower bound of a final node is 0, so final nodes leave the queue in the order of their distance either way.
+     */
+    private double priority(ProductAutomatonNode node, double distance) {
+        return heuristic == null ? distance : distance + heuristic.getLowerBound(node);
+    }
 
-            // line 1.2
-            node.setWeight(Double.POSITIVE_INFINITY);
+    private void initialiseSingleSource(ProductAutomatonNode sourceNode) {
 
-            // line 1.3
-            predecessor.put(node, null);
+        // line 1.1 - 1.3
+        // every node gets distance infinity and no predecessor.
+        // with lazy insertion a new epoch does this at once, otherwise we sweep over all nodes.
+        if (lazyInsertion) {
+            searchSpace.reset();
+        } else {
+            searchSpace.clear();
         }
         // line 1.4
-        sourceNode.setWeight(0.0);
+        searchSpace.setDistance(sourceNode.id, 0.0, -1);
     }
 
-    private void relax(ProductAutomatonNode u, ProductAutomatonNode v, ProductAutomatonEdge edge) {
+    private void relax(ProductAutomatonNode u, ProductAutomatonNode v, double cost) {
 
-        Double newCost = u.getWeight() + edge.cost;
+        double newCost = searchSpace.getDistance(u.id) + cost;
+        // A*: infinite if v cannot reach a final state, such a node is never needed.
+        double key = priority(v, newCost);
 
-        // line 8.1
-        if (v.getWeight() >= newCost && !newCost.isInfinite()) {
+        boolean reached = searchSpace.isReached(v.id);
+        // v was reached but is not in the queue anymore, i.e. it is settled. its distance is final and it never enters the queue again.
+        if (reached && !searchSpace.queue.contains(v.id)) {
+            return;
+        }
 
-            // line 8.2
-            v.setWeight(newCost);
+        // line 8.1
+        if (searchSpace.getDistance(v.id) >= newCost && !Double.isInfinite(key)) {
 
-            // line 8.3
+            // line 8.2 and 8.3
             // predecessor of v is u.
-            predecessor.put(v, u);
+            searchSpace.setDistance(v.id, newCost, u.id);
 
+            // keep the queue ordered. v is either still waiting in the queue (decrease its key) or it has not been reached yet (lazy insertion).
+            if (searchSpace.queue.contains(v.id)) {
+                searchSpace.queue.decreaseKey(v.id, key);
+            } else if (!reached) {
+                searchSpace.queue.insert(v.id, key);
+            }
         }
 
     }
 
     public HashMap<Pair<String, String>, Double> processDijkstraOverAllInitialNodes() {
+        lazyInsertion = productAutomatonConstructor.lazy || Settings.isLazyInsertion();
+        heuristic = Settings.isAStar() ? productAutomatonConstructor.getLowerBoundHeuristic() : null;
+        searchSpace.ensureCapacity(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+        searchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, productAutomatonConstructor.productAutomatonGraph.nodesById.size()));
+
+        // the workers of the parallel search need a complete productAutomatonGraph
+        if (Settings.isParallelSearch() && !productAutomatonConstructor.lazy) {
+            return processInParallel();
+        }
 
 
         // for all initial nodes...
-        for (ProductAutomatonNode initialNode : productAutomatonConstructor.productAutomatonGraph.initialNodes) {
-
-            // clean up from previous runs...
-            predecessor.clear();
-            queue.clear();
+        for (ProductAutomatonNode initialNode : productAutomatonConstructor.getSourceNodes()) {
 
-            // run single-source dijkstra
+            // run single-source dijkstra. its answers go to topKAnswers.
             algo_dijkstra(initialNode);
-            // put the new shortest-paths into the answer set
-            retrieveResultForOneInitialNode(initialNode);
 
             // update maxIterationStepsInDijkstraLoop
             //System.out.println("dijkstra counter: " + dijkstracounter);
@@ -144,21 +208,37 @@ public class DijkstraTopK {
 
         }
 
+        answerMap.putAll(topKAnswers.getAnswers());
         return answerMap;
 
     }
 
-    private void retrieveResultForOneInitialNode(ProductAutomatonNode initialNode) {
-
-        // for all nodes in set S
-        for (ProductAutomatonNode node : setOfNodes) {
-            // if you are a final state and your weight is not infinite (that means there is a path from the source to you)
-            if (node.finalState && !node.getWeight().isInfinite()) {
-                // I add you to the final answerSet in the form of ((source, target), weight)
-                Pair<String, String> answerPair = new Pair(initialNode.identifier.getValue2().identifier, node.identifier.getValue2().identifier);
-                answerMap.put(answerPair, node.getWeight());
-            }
+    /**
+     * processDijkstraOverAllInitialNodes() on several threads (see ParallelSearch).
+     * every worker is a DijkstraTopK of its own, they share topKAnswers (and therefore its bound).
+     * if several searches find the same (source, target) pair, the cheapest weight is kept.
+     */
+    private HashMap<Pair<String, String>, Double> processInParallel() {
+        List<DijkstraTopK> workers = ParallelSearch.run(productAutomatonConstructor.getSourceNodes(), () -> {
+            DijkstraTopK worker = new DijkstraTopK(productAutomatonConstructor, k);
+            worker.lazyInsertion = lazyInsertion;
+            worker.heuristic = heuristic;
+            worker.searchSpace.setQueue(SearchQueue.create(productAutomatonConstructor, productAutomatonConstructor.productAutomatonGraph.nodesById.size()));
+            worker.topKAnswers = topKAnswers;
+            return worker;
+        }, (worker, initialNode) -> {
+            // run single-source dijkstra. its answers go to topKAnswers.
+            worker.algo_dijkstra(initialNode);
+        });
+
+        answerMap.putAll(topKAnswers.getAnswers());
+        for (DijkstraTopK worker : workers) {
+            dijkstracounter += worker.dijkstracounter;
+        }
+        if (dijkstracounter > Settings.getMaxIterationStepsInDijkstraLoop()) {
+            Settings.setMaxIterationStepsInDijkstraLoop(dijkstracounter);
         }
+        return answerMap;
     }
 
 }
@@ -0,0 +1,188 @@
+package Algorithms;
+
+import java.util.Arrays;
+
+/**
+ * indexed d-ary min-heap over int ids (the ids of the productAutomatonNodes) with double keys.
+ * <br/> --- <br/>
+ * in contrast to java.util.PriorityQueue every id knows its position inside the heap. this gives us
+ * contains() in O(1) and decreaseKey() in O(log_d n) instead of remove() + add() in O(n).
+ * <br/> --- <br/>
+ * the heap grows on its own if an id does not fit (the lazy construction keeps adding nodes during the search).
+ */
+public class IndexedDaryHeap implements SearchQueue {
+
+    private static final int NOT_CONTAINED = -1;
+
+    // number of children per node
+    private final int d;
+
+    // heap[i] is the id at position i
+    private int[] heap;
+    // position[id] is the position of id in heap, NOT_CONTAINED if id is not part of the heap
+    private int[] position;
+    // keys[id] is the key of id (only meaningful while id is part of the heap)
+    private double[] keys;
+    private int size;
+
+    /**
+     * @param capacity the expected number of ids (ids are 0, ..., capacity - 1)
+     * @param d        the number of children per node (at least 2)
+     */
+    public IndexedDaryHeap(int capacity, int d) {
+        if (d < 2) {
+            throw new IllegalArgumentException("d has to be at least 2: " + d);
+        }
+        this.d = d;
+        capacity = Math.max(capacity, 16);
+        heap = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, NOT_CONTAINED);
+        keys = new double[capacity];
+    }
+
+    /**
+     * 4-ary heap. compared to a binary heap it is flatter and its children lie next to each other in memory.
+     */
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, 4);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id < position.length && position[id] != NOT_CONTAINED;
+    }
+
+    /**
+     * @return the key of id. only valid if contains(id).
+     */
+    public double getKey(int id) {
+        return keys[id];
+    }
+
+    /**
+     * adds id with the given key. id must not be part of the heap.
+     */
+    public void insert(int id, double key) {
+        if (contains(id)) {
+            throw new IllegalStateException("id is already part of the heap: " + id);
+        }
+        ensureCapacity(id + 1);
+        heap[size] = id;
+        position[id] = size;
+        keys[id] = key;
+        siftUp(size++);
+    }
+
+    /**
+     * lowers the key of id. nothing happens if key is not smaller than the current key.
+     * id must be part of the heap.
+     */
+    public void decreaseKey(int id, double key) {
+        if (!contains(id)) {
+            throw new IllegalStateException("id is not part of the heap: " + id);
+        }
+        if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(position[id]);
+        }
+    }
+
+    /**
+     * @return the id with the smallest key. the heap must not be empty.
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * removes the id with the smallest key.
+     *
+     * @return this id. the heap must not be empty.
+     */
+    public int poll() {
+        int top = heap[0];
+        position[top] = NOT_CONTAINED;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * removes every id. O(size) instead of O(capacity).
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = NOT_CONTAINED;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        double key = keys[id];
+        while (i > 0) {
+            int parent = (i - 1) / d;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[i] = parentId;
+            position[parentId] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        double key = keys[id];
+        while (true) {
+            int firstChild = d * i + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            // smallest of the (up to) d children
+            int lastChild = Math.min(firstChild + d, size);
+            int smallest = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (keys[heap[child]] < keys[heap[smallest]]) {
+                    smallest = child;
+                }
+            }
+            if (keys[heap[smallest]] >= key) {
+                break;
+            }
+            heap[i] = heap[smallest];
+            position[heap[i]] = i;
+            i = smallest;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= position.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, position.length * 2);
+        heap = Arrays.copyOf(heap, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        int oldCapacity = position.length;
+        position = Arrays.copyOf(position, newCapacity);
+        Arrays.fill(position, oldCapacity, newCapacity, NOT_CONTAINED);
+    }
+}
@@ -0,0 +1,66 @@
+package Algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * runs the single-source searches of all initial nodes on several threads.
+ * <br/> --- <br/>
+ * the searches from different initial nodes are independent. every thread creates its own worker
+ * (i.e. its own SearchSpace with distance and predecessor arrays) and takes the next initial node that is still open until none is left.
+ * the productAutomatonGraph is only read, so it has to be complete before (no lazy construction).
+ */
+class ParallelSearch {
+
+    /**
+     * @param initialNodes the initial nodes (or groups of them, see DijkstraClassic.processStreaming()), each of them is searched exactly once
+     * @param newWorker    creates the worker of one thread
+     * @param search       runs the search of one initial node with the given worker
+     * @param <S>          type of the initial nodes
+     * @param <W>          type of the workers
+     * @return all workers that were created
+     */
+    static <S, W> List<W> run(Collection<S> initialNodes, Supplier<W> newWorker, BiConsumer<W, S> search) {
+        ArrayList<S> sources = new ArrayList<>(initialNodes);
+        int numberOfThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), sources.size()));
+
+        AtomicInteger next = new AtomicInteger();
+        List<W> workers = Collections.synchronizedList(new ArrayList<>());
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            tasks.add(() -> {
+                W worker = newWorker.get();
+                workers.add(worker);
+                for (int index = next.getAndIncrement(); index < sources.size(); index = next.getAndIncrement()) {
+                    search.accept(worker, sources.get(index));
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parallel search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("parallel search failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        return workers;
+    }
+}
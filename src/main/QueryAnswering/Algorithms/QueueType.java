@@ -0,0 +1,10 @@
+package Algorithms;
+
+
+public enum QueueType {
+
+    heap,      // indexed d-ary heap, works for every cost
+    bucket,    // bucket queue (dial), needs small non-negative integer costs
+    zeroOne,   // deque of 0-1 BFS, needs the costs 0 and 1 only
+    auto,      // 0-1 BFS or bucket queue if the costs allow it, heap otherwise
+}
@@ -0,0 +1,219 @@
+package Algorithms;
+
+import Database.DatabaseNode;
+import ProductAutomatonSpecification.LongIntHashMap;
+import ProductAutomatonSpecification.ProductAutomatonCSR;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+import ProductAutomatonSpecification.ProductAutomatonEdge;
+import ProductAutomatonSpecification.ProductAutomatonNode;
+import org.javatuples.Pair;
+import org.javatuples.Triplet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * resumable query: hands out the answers ((source, target), cost) in the order of their cost, a few at a time.
+ * <br/> --- <br/>
+ * every call continues where the last one stopped: the productAutomaton, the distances and the queues of the searches are kept in between.
+ * raising the threshold (nextAnswersBelow()) or asking for the next page of answers (nextAnswers()) only does the work that was not done yet.
+ * <br/> --- <br/>
+ * there is one search per source (the initial states of a databaseNode are its sources at distance 0).
+ * the state of a search only covers the nodes it has reached: they get a local index (a LongIntHashMap from the node id),
+ * so the memory grows with the part of the productAutomaton the searches have explored and not with #sources * |productAutomaton|.
+ * a search settles its answers in the order of their cost, so the smallest key in its queue is a lower bound for every answer it can still find.
+ * the cursor always advances the search with the smallest such bound (a heap over the searches) and collects the answers they settle.
+ * a collected answer is handed out once no search can find a cheaper one anymore.
+ * <br/> --- <br/>
+ * the lazy construction fits best: the productAutomaton then only grows as far as the searches have come.
+ */
+public class SearchCursor {
+
+    ProductAutomatonConstructor productAutomatonConstructor;
+
+    // the search of one source
+    private static class SourceSearch {
+        String source;
+        // node id -> local index, in the order the nodes were reached
+        LongIntHashMap localIndices = new LongIntHashMap();
+        // local index -> node id and its distance (d[V] of the reached nodes)
+        int[] nodeIds = new int[16];
+        double[] distances = new double[16];
+        int numberOfReachedNodes;
+        // Q of this search over the local indices. the queue is a heap, we need its smallest key (see advance()).
+        IndexedDaryHeap queue = new IndexedDaryHeap(16);
+        // the databaseNodes this search has settled in a final state already (their index), i.e. its answers so far
+        LongIntHashMap settledTargets = new LongIntHashMap();
+
+        /**
+         * the search reaches the node for the first time.
+         *
+         * @return the local index of the node
+         */
+        int reach(int nodeId, double distance) {
+            if (numberOfReachedNodes == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, numberOfReachedNodes * 2);
+                distances = Arrays.copyOf(distances, numberOfReachedNodes * 2);
+            }
+            int local = numberOfReachedNodes++;
+            nodeIds[local] = nodeId;
+            distances[local] = distance;
+            localIndices.put(nodeId, local);
+            queue.insert(local, distance);
+            return local;
+        }
+    }
+
+    private final ArrayList<SourceSearch> searches;
+    // the searches whose queue is not empty, keyed by their bound
+    private final IndexedDaryHeap open;
+
+    // answers that are settled but not handed out yet, cheapest first
+    private final PriorityQueue<Triplet<String, String, Double>> pendingAnswers;
+
+    int dijkstracounter = 0;
+
+    /**
+     * @param productAutomatonConstructor the constructor of the productAutomaton, construct() has to be called before
+     */
+    public SearchCursor(ProductAutomatonConstructor productAutomatonConstructor) {
+        this.productAutomatonConstructor = productAutomatonConstructor;
+        pendingAnswers = new PriorityQueue<>(Comparator.comparing(Triplet::getValue2));
+
+        // databaseNode -> its initial states
+        LinkedHashMap<DatabaseNode, List<ProductAutomatonNode>> sourceNodes = new LinkedHashMap<>();
+        for (ProductAutomatonNode initialNode : productAutomatonConstructor.getSourceNodes()) {
+            sourceNodes.computeIfAbsent(initialNode.databaseNode, d -> new ArrayList<>()).add(initialNode);
+        }
+
+        searches = new ArrayList<>(sourceNodes.size());
+        open = new IndexedDaryHeap(sourceNodes.size());
+        for (List<ProductAutomatonNode> initialNodes : sourceNodes.values()) {
+            SourceSearch search = new SourceSearch();
+            search.source = initialNodes.get(0).databaseNode.identifier;
+            for (ProductAutomatonNode initialNode : initialNodes) {
+                search.reach(initialNode.id, 0.0);
+            }
+            open.insert(searches.size(), 0.0);
+            searches.add(search);
+        }
+    }
+
+    /**
+     * the next page of answers.
+     *
+     * @param k the number of answers
+     * @return the next k answers (less if there are no more), sorted by their cost (cheapest first)
+     */
+    public LinkedHashMap<Pair<String, String>, Double> nextAnswers(int k) {
+        LinkedHashMap<Pair<String, String>, Double> answers = new LinkedHashMap<>();
+        while (answers.size() < k) {
+            // the cheapest pending answer is the next one as soon as no search can find a cheaper one.
+            if (!pendingAnswers.isEmpty() && (open.isEmpty() || pendingAnswers.peek().getValue2() <= open.getKey(open.peek()))) {
+                Triplet<String, String, Double> answer = pendingAnswers.poll();
+                answers.put(new Pair<>(answer.getValue0(), answer.getValue1()), answer.getValue2());
+            } else if (!open.isEmpty()) {
+                advance();
+            } else {
+                break;
+            }
+        }
+        return answers;
+    }
+
+    /**
+     * the next answers up to a threshold, e.g. first all answers below 1, then all answers below 2 (without those below 1) and so on.
+     *
+     * @param threshold the threshold
+     * @return the answers with a cost below threshold that were not handed out yet, sorted by their cost (cheapest first)
+     */
+    public LinkedHashMap<Pair<String, String>, Double> nextAnswersBelow(double threshold) {
+        // afterwards every answer below the threshold is settled
+        while (!open.isEmpty() && open.getKey(open.peek()) < threshold) {
+            advance();
+        }
+
+        LinkedHashMap<Pair<String, String>, Double> answers = new LinkedHashMap<>();
+        while (!pendingAnswers.isEmpty() && pendingAnswers.peek().getValue2() < threshold) {
+            Triplet<String, String, Double> answer = pendingAnswers.poll();
+            answers.put(new Pair<>(answer.getValue0(), answer.getValue1()), answer.getValue2());
+        }
+        return answers;
+    }
+
+    /**
+     * @return true if every answer was handed out
+     */
+    public boolean isExhausted() {
+        return open.isEmpty() && pendingAnswers.isEmpty();
+    }
+
+    public int getDijkstraCounter() {
+        return dijkstracounter;
+    }
+
+    /**
+     * one step of the search with the smallest bound: the node with the smallest distance leaves its queue.
+     */
+    private void advance() {
+        int index = open.poll();
+        SourceSearch search = searches.get(index);
+        dijkstracounter++;
+
+        int local = search.queue.poll();
+        ProductAutomatonNode p = productAutomatonConstructor.productAutomatonGraph.getNode(search.nodeIds[local]);
+        double distance = search.distances[local];
+        // p is settled. the first final state of a database node that is settled gives its answer.
+        if (p.finalState && search.settledTargets.get(p.databaseNode.index) == -1) {
+            search.settledTargets.put(p.databaseNode.index, 0);
+            pendingAnswers.add(new Triplet<>(search.source, p.databaseNode.identifier, distance));
+        }
+
+        if (productAutomatonConstructor.lazy) {
+            for (ProductAutomatonEdge edge : productAutomatonConstructor.getOutgoingEdges(p)) {
+                relax(search, distance, edge.target.id, edge.cost);
+            }
+        } else {
+            // the outgoing edges of p are the entries offsets[p.id], ..., offsets[p.id + 1] - 1 of the CSR.
+            ProductAutomatonCSR csr = productAutomatonConstructor.productAutomatonCSR;
+            for (int e = csr.offsets[p.id]; e < csr.offsets[p.id + 1]; e++) {
+                relax(search, distance, csr.targets[e], csr.costs[e]);
+            }
+        }
+
+        // the search goes back to the heap with its new bound, unless it is done
+        if (!search.queue.isEmpty()) {
+            open.insert(index, search.queue.getKey(search.queue.peek()));
+        }
+    }
+
+    /**
+     * relaxes the edge u -> v of one search.
+     *
+     * @param distance the distance of u
+     * @param v        the id of the target node
+     * @param cost     the cost of the edge
+     */
+    private void relax(SourceSearch search, double distance, int v, double cost) {
+        double newCost = distance + cost;
+
+        int local = search.localIndices.get(v);
+        if (local == -1) {
+            search.reach(v, newCost);
+            return;
+        }
+        // v is settled, its distance is final and it never enters the queue again.
+        if (!search.queue.contains(local)) {
+            return;
+        }
+
+        if (search.distances[local] > newCost) {
+            search.distances[local] = newCost;
+            search.queue.decreaseKey(local, newCost);
+        }
+    }
+}
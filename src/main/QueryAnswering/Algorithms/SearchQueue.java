@@ -0,0 +1,87 @@
+package Algorithms;
+
+import Application.Settings;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+
+/**
+ * min-priority queue Q of the dijkstra variants over the ids of the productAutomatonNodes, keyed by their distance.
+ * every id is contained at most once, its key can only be lowered (decreaseKey).
+ */
+public interface SearchQueue {
+
+    boolean isEmpty();
+
+    int size();
+
+    boolean contains(int id);
+
+    /**
+     * adds id with the given key. id must not be part of the queue.
+     */
+    void insert(int id, double key);
+
+    /**
+     * lowers the key of id. nothing happens if key is not smaller than the current key.
+     * id must be part of the queue.
+     */
+    void decreaseKey(int id, double key);
+
+    /**
+     * removes the id with the smallest key.
+     *
+     * @return this id. the queue must not be empty.
+     */
+    int poll();
+
+    /**
+     * removes every id.
+     */
+    void clear();
+
+    /**
+     * creates the queue that is configured in Settings.queueType.
+     * auto picks the 0-1 BFS deque if every cost of the productAutomaton is 0 or 1, the bucket queue if every cost is a small non-negative integer
+     * and the heap otherwise. A* (Settings.aStar) always uses the heap.
+     *
+     * @param productAutomatonConstructor the constructor of the productAutomaton that is searched
+     * @param capacity                    the expected number of nodes
+     * @return the queue
+     */
+    static SearchQueue create(ProductAutomatonConstructor productAutomatonConstructor, int capacity) {
+        if (Settings.isAStar()) {
+            // the keys of A* (distance + lower bound) only grow, but not in steps of at most the largest cost. only the heap can handle them.
+            return new IndexedDaryHeap(capacity);
+        }
+
+        boolean integralCosts = productAutomatonConstructor.hasIntegralCosts();
+        double maximumCost = productAutomatonConstructor.getMaximumCost();
+        boolean zeroOnePossible = integralCosts && maximumCost <= 1;
+        boolean bucketsPossible = integralCosts && maximumCost < BucketQueue.MAX_NUMBER_OF_BUCKETS;
+
+        switch (Settings.getQueueType()) {
+            case zeroOne:
+                if (zeroOnePossible) {
+                    return new ZeroOneQueue(capacity);
+                }
+                System.out.println("0-1 BFS needs the costs 0 and 1 only. using the heap instead.");
+                return new IndexedDaryHeap(capacity);
+            case bucket:
+                if (bucketsPossible) {
+                    return new BucketQueue(capacity, (int) maximumCost);
+                }
+                System.out.println("the bucket queue needs small non-negative integer costs. using the heap instead.");
+                return new IndexedDaryHeap(capacity);
+            case auto:
+                if (zeroOnePossible) {
+                    return new ZeroOneQueue(capacity);
+                }
+                if (bucketsPossible) {
+                    return new BucketQueue(capacity, (int) maximumCost);
+                }
+                return new IndexedDaryHeap(capacity);
+            case heap:
+            default:
+                return new IndexedDaryHeap(capacity);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package Algorithms;
+
+import java.util.Arrays;
+
+/**
+ * the state of one single-source dijkstra run over the ids of the productAutomatonNodes:
+ * d[V] (distance), π[V] (predecessor) and the min-priority queue Q.
+ * <br/> --- <br/>
+ * instead of resetting every entry before each run (initialiseSingleSource) the entries carry a stamp.
+ * an entry only counts if its stamp equals the current epoch, so starting a new run is a single increment (see reset()).
+ * <br/> --- <br/>
+ * the arrays grow on their own if an id does not fit (the lazy construction keeps adding nodes during the search).
+ */
+public class SearchSpace {
+
+    private static final int NO_PREDECESSOR = -1;
+
+    // d[V] and π[V], only valid if stamp[V] == epoch
+    private double[] distance;
+    private int[] predecessor;
+    private int[] stamp;
+    private int epoch;
+
+    // ids that were reached in the current run, in the order they were reached
+    private int[] reached;
+    private int numberOfReached;
+
+    // min-priority queue Q over the ids of the nodes, keyed by their distance. supports decreaseKey.
+    public SearchQueue queue;
+
+    /**
+     * @param capacity the expected number of nodes
+     */
+    public SearchSpace(int capacity) {
+        capacity = Math.max(capacity, 16);
+        distance = new double[capacity];
+        predecessor = new int[capacity];
+        stamp = new int[capacity];
+        reached = new int[capacity];
+        epoch = 1;
+        queue = new IndexedDaryHeap(capacity);
+    }
+
+    /**
+     * starts a new run: every node is unreached again (distance infinity, no predecessor) and the queue is empty.
+     * O(1) apart from emptying the queue.
+     */
+    public void reset() {
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            // the stamps would overflow. start over once.
+            clear();
+            return;
+        }
+        numberOfReached = 0;
+        queue.clear();
+    }
+
+    /**
+     * same as reset(), but sweeps over every entry.
+     */
+    public void clear() {
+        Arrays.fill(stamp, 0);
+        epoch = 1;
+        numberOfReached = 0;
+        queue.clear();
+    }
+
+    /**
+     * replaces the queue (e.g. by a bucket queue if the costs allow it, see SearchQueue.create()). the old queue is discarded.
+     */
+    public void setQueue(SearchQueue queue) {
+        this.queue = queue;
+    }
+
+    public boolean isReached(int id) {
+        return id < stamp.length && stamp[id] == epoch;
+    }
+
+    /**
+     * @return d[id], infinity if id was not reached in the current run
+     */
+    public double getDistance(int id) {
+        return isReached(id) ? distance[id] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return π[id], -1 if id was not reached in the current run or if it is the source
+     */
+    public int getPredecessor(int id) {
+        return isReached(id) ? predecessor[id] : NO_PREDECESSOR;
+    }
+
+    /**
+     * sets d[id] and π[id]. use -1 as predecessor for the source.
+     */
+    public void setDistance(int id, double value, int predecessorId) {
+        ensureCapacity(id + 1);
+        if (stamp[id] != epoch) {
+            stamp[id] = epoch;
+            reached[numberOfReached++] = id;
+        }
+        distance[id] = value;
+        predecessor[id] = predecessorId;
+    }
+
+    public int getNumberOfReached() {
+        return numberOfReached;
+    }
+
+    /**
+     * @param i 0 <= i < getNumberOfReached()
+     * @return the i-th node that was reached in the current run
+     */
+    public int getReached(int i) {
+        return reached[i];
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= stamp.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, stamp.length * 2);
+        distance = Arrays.copyOf(distance, newCapacity);
+        predecessor = Arrays.copyOf(predecessor, newCapacity);
+        stamp = Arrays.copyOf(stamp, newCapacity);
+        reached = Arrays.copyOf(reached, newCapacity);
+    }
+}
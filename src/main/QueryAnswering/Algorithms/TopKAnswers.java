@@ -0,0 +1,93 @@
+package Algorithms;
+
+import org.javatuples.Pair;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+
+/**
+ * the k best answers ((source, target), cost) found so far, shared by the searches of all initial nodes.
+ * <br/> --- <br/>
+ * the answers are kept in a bounded max-heap: the worst of the k answers is on top and is replaced as soon as a better answer comes in.
+ * once there are k answers, the cost of the worst one is a bound for every search:
+ * a search whose queue only holds nodes at a distance of at least this bound cannot find a better answer anymore.
+ * <br/> --- <br/>
+ * thread-safe, the workers of the parallel search share one instance.
+ */
+public class TopKAnswers {
+
+    private final int k;
+
+    // answer -> its cost. contains exactly the answers of the heap.
+    private final HashMap<Pair<String, String>, Double> costs;
+    // max-heap over the answers, ordered by their cost
+    private final PriorityQueue<Pair<String, String>> heap;
+
+    // cost of the k-th best answer, infinity as long as there are less than k answers
+    private volatile double bound;
+
+    /**
+     * @param k the number of answers we want
+     */
+    public TopKAnswers(int k) {
+        this.k = k;
+        costs = new HashMap<>();
+        heap = new PriorityQueue<>(Math.max(k, 1), (a, b) -> Double.compare(costs.get(b), costs.get(a)));
+        // k = 0: no answer is good enough
+        bound = k > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return the cost an answer has to stay below to become one of the k best answers
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * offers an answer. if the answer is already known, the cheaper cost is kept.
+     *
+     * @param answer (source, target)
+     * @param cost   the cost of the answer
+     * @return true if the answer is one of the k best answers now
+     */
+    public synchronized boolean offer(Pair<String, String> answer, double cost) {
+        Double knownCost = costs.get(answer);
+        if (knownCost != null) {
+            if (cost >= knownCost) {
+                return false;
+            }
+            // the position inside the heap depends on the cost, so the answer has to leave the heap before its cost changes.
+            heap.remove(answer);
+        } else if (costs.size() == k) {
+            if (cost >= bound) {
+                return false;
+            }
+            costs.remove(heap.poll());
+        }
+        costs.put(answer, cost);
+        heap.add(answer);
+
+        if (costs.size() == k) {
+            bound = costs.get(heap.peek());
+        }
+        return true;
+    }
+
+    /**
+     * @return the answers, sorted by their cost (cheapest first)
+     */
+    public synchronized LinkedHashMap<Pair<String, String>, Double> getAnswers() {
+        ArrayList<Pair<String, String>> answers = new ArrayList<>(costs.keySet());
+        answers.sort(Comparator.comparing(costs::get));
+
+        LinkedHashMap<Pair<String, String>, Double> sortedAnswers = new LinkedHashMap<>();
+        for (Pair<String, String> answer : answers) {
+            sortedAnswers.put(answer, costs.get(answer));
+        }
+        return sortedAnswers;
+    }
+}
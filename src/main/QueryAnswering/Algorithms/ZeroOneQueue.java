@@ -0,0 +1,180 @@
+package Algorithms;
+
+import java.util.Arrays;
+
+/**
+ * double ended queue for 0-1 BFS, i.e. for edge costs 0 and 1.
+ * <br/> --- <br/>
+ * if every edge costs 0 or 1, all keys inside the queue of a dijkstra run are either min or min + 1.
+ * keys equal to min go to the front, keys equal to min + 1 to the back, so the deque is always sorted and poll takes the front.
+ * decreaseKey (min + 1 -> min) adds the id to the front again. the old entry at the back stays where it is and is skipped once it comes up (stale entry).
+ * all operations are O(1) (amortised), a whole run is linear in the size of the explored productAutomaton.
+ * <br/> --- <br/>
+ * the key infinity (unreached nodes) is kept in an extra stack that is only used once the deque is empty.
+ */
+public class ZeroOneQueue implements SearchQueue {
+
+    // ring buffer of entries (id, key at the time the entry was added)
+    private int[] entryIds;
+    private double[] entryKeys;
+    private int head;
+    private int numberOfEntries;
+
+    // ids with key infinity
+    private int[] infiniteIds;
+    private int numberOfInfiniteIds;
+
+    // current key of every id, only meaningful while contained[id]
+    private double[] keys;
+    private boolean[] contained;
+    private int size;
+
+    // key of the last polled id (the smallest key that can still be in the queue)
+    private double current;
+
+    /**
+     * @param capacity the expected number of ids
+     */
+    public ZeroOneQueue(int capacity) {
+        capacity = Math.max(capacity, 16);
+        int ringCapacity = Integer.highestOneBit(capacity - 1) << 1;
+        entryIds = new int[ringCapacity];
+        entryKeys = new double[ringCapacity];
+        infiniteIds = new int[capacity];
+        keys = new double[capacity];
+        contained = new boolean[capacity];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id < contained.length && contained[id];
+    }
+
+    @Override
+    public void insert(int id, double key) {
+        if (contains(id)) {
+            throw new IllegalStateException("id is already part of the queue: " + id);
+        }
+        ensureCapacity(id + 1);
+        contained[id] = true;
+        keys[id] = key;
+        size++;
+        if (key == Double.POSITIVE_INFINITY) {
+            if (numberOfInfiniteIds == infiniteIds.length) {
+                infiniteIds = Arrays.copyOf(infiniteIds, infiniteIds.length * 2);
+            }
+            infiniteIds[numberOfInfiniteIds++] = id;
+        } else {
+            addEntry(id, key);
+        }
+    }
+
+    @Override
+    public void decreaseKey(int id, double key) {
+        if (!contains(id)) {
+            throw new IllegalStateException("id is not part of the queue: " + id);
+        }
+        if (key < keys[id]) {
+            // the old entry becomes stale
+            keys[id] = key;
+            addEntry(id, key);
+        }
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("the queue is empty");
+        }
+        while (numberOfEntries > 0) {
+            int id = entryIds[head];
+            double key = entryKeys[head];
+            head = (head + 1) & (entryIds.length - 1);
+            numberOfEntries--;
+            // skip stale entries: the id was polled already or its key was lowered afterwards
+            if (contained[id] && keys[id] == key) {
+                contained[id] = false;
+                size--;
+                current = key;
+                return id;
+            }
+        }
+        // only ids with key infinity are left. they may have been reached in the meantime (stale as well).
+        while (true) {
+            int id = infiniteIds[--numberOfInfiniteIds];
+            if (contained[id] && keys[id] == Double.POSITIVE_INFINITY) {
+                contained[id] = false;
+                size--;
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < numberOfEntries; i++) {
+            contained[entryIds[(head + i) & (entryIds.length - 1)]] = false;
+        }
+        for (int i = 0; i < numberOfInfiniteIds; i++) {
+            contained[infiniteIds[i]] = false;
+        }
+        head = 0;
+        numberOfEntries = 0;
+        numberOfInfiniteIds = 0;
+        size = 0;
+        current = 0;
+    }
+
+    private void addEntry(int id, double key) {
+        if (numberOfEntries == entryIds.length) {
+            growRing();
+        }
+        int mask = entryIds.length - 1;
+        if (key == current) {
+            // front
+            head = (head - 1) & mask;
+            entryIds[head] = id;
+            entryKeys[head] = key;
+        } else if (key == current + 1) {
+            // back
+            int tail = (head + numberOfEntries) & mask;
+            entryIds[tail] = id;
+            entryKeys[tail] = key;
+        } else {
+            throw new IllegalArgumentException("0-1 BFS only supports the keys " + current + " and " + (current + 1) + ": " + key);
+        }
+        numberOfEntries++;
+    }
+
+    private void growRing() {
+        int oldCapacity = entryIds.length;
+        int[] ids = new int[oldCapacity * 2];
+        double[] entryKeysNew = new double[oldCapacity * 2];
+        for (int i = 0; i < numberOfEntries; i++) {
+            ids[i] = entryIds[(head + i) & (oldCapacity - 1)];
+            entryKeysNew[i] = entryKeys[(head + i) & (oldCapacity - 1)];
+        }
+        entryIds = ids;
+        entryKeys = entryKeysNew;
+        head = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= contained.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, contained.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        contained = Arrays.copyOf(contained, newCapacity);
+    }
+}
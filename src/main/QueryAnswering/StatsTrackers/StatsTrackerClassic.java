@@ -1,5 +1,6 @@
 package StatsTrackers;
 
+import Algorithms.AnswerStore;
 import Algorithms.DijkstraClassic;
 import Application.Settings;
 import DataProvider.DataProvider;
@@ -7,20 +8,20 @@ import Database.DatabaseGraph;
 import ProductAutomatonSpecification.ProductAutomatonConstructor;
 import Query.QueryGraph;
 import Transducer.TransducerGraph;
-import org.javatuples.Pair;
 
 import java.io.*;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class StatsTrackerClassic implements StatsTracker {
     QueryGraph queryGraph;
     TransducerGraph transducerGraph;
     DatabaseGraph databaseGraph;
     ProductAutomatonConstructor productAutomatonConstructor;
-    HashMap<Pair<String, String>, Double> answerMap;
+    // the answers stay in the primitive store, they are sorted and handed out from there (see AnswerStore.forEachByCost())
+    AnswerStore answerStore;
+    // streaming only (see Settings.isStreamAnswers()): the answers are printed during the search and only counted, answerStore stays empty.
+    // null if the answers are collected.
+    AtomicInteger numberOfStreamedAnswers;
     String outputDirectory = Settings.outputFileDirectory;
 
     DijkstraClassic dijkstraClassic;
@@ -32,7 +33,7 @@ public class StatsTrackerClassic implements StatsTracker {
 
         this.productAutomatonConstructor = new ProductAutomatonConstructor(queryGraph, transducerGraph, databaseGraph);
         this.dijkstraClassic = new DijkstraClassic(productAutomatonConstructor);
-        this.answerMap = new HashMap<>();
+        this.answerStore = new AnswerStore();
     }
 
 
@@ -70,14 +71,22 @@ public class StatsTrackerClassic implements StatsTracker {
         // start of Dijkstra
         long start = System.nanoTime(); // System.currentTimeMillis();
 
-        answerMap = dijkstraClassic.processDijkstraOverAllInitialNodes();
+        // streaming: every answer is printed as soon as it is known instead of being collected (see AnswerListener)
+        if (Settings.isStreamAnswers()) {
+            numberOfStreamedAnswers = new AtomicInteger();
+            dijkstraClassic.answerListener = (source, target, cost) -> {
+                numberOfStreamedAnswers.incrementAndGet();
+                System.out.println("(" + source + ", " + target + ") with cost " + cost);
+            };
+        }
+        answerStore = dijkstraClassic.processDijkstraIntoAnswerStore();
         //System.out.println("end of dijkstra...");
         // end of Dijkstra
         long elapsedTimeNanoDijkstra = System.nanoTime() - start; //System.currentTimeMillis() - start;
 
         // start of postprocessing
         long startPostProcessing = System.nanoTime();
-        answerMap = sortResults(answerMap);
+        answerStore.sortByCost();
         // end of postprocessing
         long elapsedTimePostProcessing = System.nanoTime() - startPostProcessing;
 
@@ -88,8 +97,8 @@ public class StatsTrackerClassic implements StatsTracker {
         Settings.setDijkstraProcessingTime(elapsedTimeNanoDijkstra);
         Settings.setPostprocessingTime(elapsedTimePostProcessing);
         Settings.setCombinedTime(elapsedTimeTotalProcessing);
-        Settings.setNumberOfAnswers(answerMap.size());
-        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodes.size());
+        Settings.setNumberOfAnswers(numberOfStreamedAnswers != null ? numberOfStreamedAnswers.get() : answerStore.size());
+        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
 
     }
 
@@ -113,7 +122,7 @@ public class StatsTrackerClassic implements StatsTracker {
         float compTimeSecTotal = milliTotal / 1000F;
         float compTimeMinTotal = milliTotal / (60 * 1000F);
 
-        int amountOfNodes = productAutomatonConstructor.productAutomatonGraph.nodes.size();
+        int amountOfNodes = productAutomatonConstructor.productAutomatonGraph.nodesById.size();
 
 
         try {
@@ -157,8 +166,10 @@ public class StatsTrackerClassic implements StatsTracker {
 
         System.out.println("------------------");
         System.out.println("end result: ");
-        for (Pair pair : answerMap.keySet()) {
-            System.out.println("(" + pair.getValue0().toString() + ", " + pair.getValue1().toString() + ") with cost " + answerMap.get(pair));
+        if (numberOfStreamedAnswers != null) {
+            System.out.println("the answers were streamed during the search (see above), total answers: " + numberOfStreamedAnswers.get());
+        } else {
+            answerStore.forEachByCost((source, target, cost) -> System.out.println("(" + source + ", " + target + ") with cost " + cost));
         }
         System.out.println("computation completed.");
     }
@@ -167,18 +178,24 @@ public class StatsTrackerClassic implements StatsTracker {
     public void writeResultToFile() throws FileNotFoundException {
 
         File queryAnswers = new File(outputDirectory + "queryResults.txt");
-        FileWriter out;
 
         try {
-            out = new FileWriter(queryAnswers, false);
+            // a PrintWriter does not throw, the errors are checked once at the end (checkError())
+            PrintWriter out = new PrintWriter(new FileWriter(queryAnswers, false));
             out.write("query processed. \n");
 
-            for (Pair pair : answerMap.keySet()) {
-                out.write("(" + pair.getValue0().toString() + ", " + pair.getValue1().toString() + ") with cost " + answerMap.get(pair) + "\n");
+            if (numberOfStreamedAnswers != null) {
+                // the answers were only printed to the console (streaming), there is nothing to write but their number
+                out.write("the answers were streamed to the console and not collected. \n");
+                out.write("total answers: " + numberOfStreamedAnswers.get());
+            } else {
+                answerStore.forEachByCost((source, target, cost) -> out.write("(" + source + ", " + target + ") with cost " + cost + "\n"));
+                out.write("total answers: " + answerStore.size());
             }
-
-            out.write("total answers: " + answerMap.size());
             out.close();
+            if (out.checkError()) {
+                throw new IOException("could not write " + queryAnswers);
+            }
             System.out.println("successfully wrote to file.");
 
         } catch (IOException e) {
@@ -194,17 +211,5 @@ public class StatsTrackerClassic implements StatsTracker {
         System.setOut(stdout);
     }
 
-    private HashMap<Pair<String, String>, Double> sortResults(HashMap<Pair<String, String>, Double> hm) {
-
-        return hm.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1, LinkedHashMap::new
-                ));
-    }
-
 
 }
@@ -0,0 +1,166 @@
+package StatsTrackers;
+
+import Application.Settings;
+import Database.DatabaseGraph;
+import ProductAutomatonSpecification.ProductAutomatonGraph;
+import Query.QueryGraph;
+import Transducer.TransducerGraph;
+import org.javatuples.Pair;
+
+import java.io.*;
+import java.util.Map;
+
+/**
+ * the part of a statsTracker that does not depend on the search: the timing and the output files.
+ * <br/> --- <br/>
+ * graphs.txt: the input graphs (see writeInputGraphs()) followed by the productAutomaton (see writeProductAutomaton()).
+ * computationStats.txt: the time stats (see writeTimeToFile()).
+ * queryResults.txt: the answers (see writeAnswers()).
+ */
+final class StatsTrackerOutput {
+
+    private StatsTrackerOutput() {
+    }
+
+    /**
+     * writes the query, transducer and database graph to graphs.txt (the file is overwritten).
+     */
+    static void writeInputGraphs(String outputDirectory, QueryGraph queryGraph, TransducerGraph transducerGraph, DatabaseGraph databaseGraph) throws FileNotFoundException {
+        PrintStream fileStream = new PrintStream(new FileOutputStream(outputDirectory + "graphs.txt", false));
+        PrintStream stdout = System.out;
+        System.setOut(fileStream);
+
+        System.out.println("query graph: ");
+        queryGraph.printGraph();
+        System.out.println("---");
+
+        System.out.println("transducer graph: ");
+        transducerGraph.printGraph();
+        System.out.println("---");
+
+        System.out.println("database graph: ");
+        databaseGraph.printGraph();
+        System.out.println("---");
+
+        System.setOut(stdout);
+        fileStream.close();
+    }
+
+    /**
+     * appends the productAutomaton to graphs.txt.
+     */
+    static void writeProductAutomaton(String outputDirectory, ProductAutomatonGraph productAutomatonGraph) throws FileNotFoundException {
+        PrintStream fileStream = new PrintStream(new FileOutputStream(outputDirectory + "graphs.txt", true));
+        PrintStream stdout = System.out;
+        System.setOut(fileStream);
+        System.out.println("product automaton: ");
+        productAutomatonGraph.printGraph();
+        System.setOut(stdout);
+        fileStream.close();
+    }
+
+    /**
+     * stores the times of one run in the Settings.
+     * every parameter is a value of System.nanoTime(), the phases follow each other:
+     * preprocessing (productAutomaton construction), dijkstra, postprocessing.
+     */
+    static void setTimes(long startPreprocessing, long startDijkstra, long startPostprocessing, long end) {
+        Settings.setPreprocessingTime(startDijkstra - startPreprocessing);
+        Settings.setDijkstraProcessingTime(startPostprocessing - startDijkstra);
+        Settings.setPostprocessingTime(end - startPostprocessing);
+        Settings.setCombinedTime(end - startPreprocessing);
+    }
+
+    /**
+     * appends the time stats to computationStats.txt.
+     *
+     * @param amountOfNodes      number of nodes of the productAutomaton
+     * @param milli              time of the dijkstra processing (milliseconds)
+     * @param milliPreprocessing time of the preprocessing (milliseconds)
+     * @param milliTotal         time of both (milliseconds)
+     */
+    static void writeTimeToFile(String outputDirectory, int amountOfNodes, long milli, long milliPreprocessing, long milliTotal) {
+        File stats = new File(outputDirectory + "computationStats.txt");
+
+        float compTimeSecPreprocessing = milliPreprocessing / 1000F;
+        float compTimeSec = milli / 1000F;
+        float compTimeSecTotal = milliTotal / 1000F;
+
+        try {
+            // a PrintWriter does not throw, the errors are checked once at the end (checkError())
+            PrintWriter out = new PrintWriter(new FileWriter(stats, true));
+
+            out.write("amount of actual nodes in the product automaton: " + amountOfNodes + ". \n");
+            out.write("\n");
+            out.write("some computation time stats. \n");
+            out.write("(1) preprocessing (productAutomaton construction \n");
+            writeTime(out, milliPreprocessing, compTimeSecPreprocessing);
+            out.write("(2) dijkstra processing \n");
+            writeTime(out, milli, compTimeSec);
+            out.write("(3) combined (preprocessing and dijkstra) \n");
+            writeTime(out, milliTotal, compTimeSecTotal);
+
+            out.close();
+            if (out.checkError()) {
+                throw new IOException("could not write " + stats);
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeTime(PrintWriter out, long milli, float sec) {
+        out.write("   time needed (milliseconds): " + (float) milli + " \n");
+        out.write("   time needed (seconds): " + sec + " \n");
+        if (sec > 60.0) {
+            out.write("   time needed (minutes): " + milli / (60 * 1000F) + " \n");
+        }
+    }
+
+    /**
+     * prints the answers (in the order of the map) to the console.
+     */
+    static void printAnswers(Map<Pair<String, String>, Double> answerMap) {
+        System.out.println("------------------");
+        System.out.println("end result: ");
+        for (Map.Entry<Pair<String, String>, Double> answer : answerMap.entrySet()) {
+            System.out.println(format(answer));
+        }
+        System.out.println("computation completed.");
+    }
+
+    /**
+     * writes the answers (in the order of the map) to queryResults.txt (the file is overwritten).
+     *
+     * @param restriction describes the query, e.g. "threshold t = 2.0"
+     */
+    static void writeAnswers(String outputDirectory, String restriction, Map<Pair<String, String>, Double> answerMap) {
+        File queryAnswers = new File(outputDirectory + "queryResults.txt");
+        try {
+            // a PrintWriter does not throw, the errors are checked once at the end (checkError())
+            PrintWriter out = new PrintWriter(new FileWriter(queryAnswers, false));
+            out.write("query processed. \n");
+            out.write("restriction: " + restriction + " \n");
+
+            for (Map.Entry<Pair<String, String>, Double> answer : answerMap.entrySet()) {
+                out.write(format(answer) + "\n");
+            }
+
+            out.write("total answers: " + answerMap.size());
+            out.close();
+            if (out.checkError()) {
+                throw new IOException("could not write " + queryAnswers);
+            }
+            System.out.println("successfully wrote to file.");
+
+        } catch (IOException e) {
+            System.out.println("error.");
+            e.printStackTrace();
+        }
+    }
+
+    private static String format(Map.Entry<Pair<String, String>, Double> answer) {
+        return "(" + answer.getKey().getValue0() + ", " + answer.getKey().getValue1() + ") with cost " + answer.getValue();
+    }
+}
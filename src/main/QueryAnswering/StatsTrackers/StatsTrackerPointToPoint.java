@@ -0,0 +1,83 @@
+package StatsTrackers;
+
+import Algorithms.DijkstraBidirectional;
+import Application.Settings;
+import DataProvider.DataProvider;
+import Database.DatabaseGraph;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+import Query.QueryGraph;
+import Transducer.TransducerGraph;
+import org.javatuples.Pair;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.HashMap;
+
+public class StatsTrackerPointToPoint implements StatsTracker {
+    QueryGraph queryGraph;
+    TransducerGraph transducerGraph;
+    DatabaseGraph databaseGraph;
+    ProductAutomatonConstructor productAutomatonConstructor;
+    HashMap<Pair<String, String>, Double> answerMap;
+
+    DijkstraBidirectional dijkstraBidirectional;
+    String source;
+    String target;
+
+    String outputDirectory = Settings.outputFileDirectory;
+
+    public StatsTrackerPointToPoint(DataProvider dataProvider, String source, String target) {
+        this.queryGraph = dataProvider.getQueryGraph();
+        this.transducerGraph = dataProvider.getTransducerGraph();
+        this.databaseGraph = dataProvider.getDatabaseGraph();
+
+        this.source = source;
+        this.target = target;
+
+        this.productAutomatonConstructor = new ProductAutomatonConstructor(queryGraph, transducerGraph, databaseGraph);
+        // only the part of the productAutomaton that can be reached from source is built (see ProductAutomatonConstructor.constructFromSources()),
+        // so the reversed edges of the backward search also only cover this part.
+        this.productAutomatonConstructor.sources = Collections.singleton(source);
+        // the backward search walks the edges in reverse, it needs the constructed productAutomaton (not the lazy one).
+        this.productAutomatonConstructor.lazy = false;
+        this.dijkstraBidirectional = new DijkstraBidirectional(productAutomatonConstructor);
+        this.answerMap = new HashMap<>();
+    }
+
+    @Override
+    public void runDijkstra() throws FileNotFoundException {
+        StatsTrackerOutput.writeInputGraphs(outputDirectory, queryGraph, transducerGraph, databaseGraph);
+
+        // preprocessing
+        long startPreprocessing = System.nanoTime();
+        productAutomatonConstructor.construct();
+
+        // Dijkstra
+        long start = System.nanoTime();
+        answerMap = dijkstraBidirectional.processPointToPoint(source, target);
+
+        // there is at most one answer, no postprocessing
+        long end = System.nanoTime();
+        StatsTrackerOutput.setTimes(startPreprocessing, start, end, end);
+        Settings.setNumberOfAnswers(answerMap.size());
+        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+    }
+
+    @Override
+    public void writeTimeToFile(long milli, long milliPreprocessing, long milliTotal) {
+        StatsTrackerOutput.writeTimeToFile(outputDirectory, productAutomatonConstructor.productAutomatonGraph.nodesById.size(),
+                milli, milliPreprocessing, milliTotal);
+    }
+
+    @Override
+    public void printEndResult() throws FileNotFoundException {
+        writeResultToFile();
+        StatsTrackerOutput.printAnswers(answerMap);
+    }
+
+    @Override
+    public void writeResultToFile() throws FileNotFoundException {
+        StatsTrackerOutput.writeAnswers(outputDirectory, "point-to-point from " + source + " to " + target, answerMap);
+        StatsTrackerOutput.writeProductAutomaton(outputDirectory, productAutomatonConstructor.productAutomatonGraph);
+    }
+}
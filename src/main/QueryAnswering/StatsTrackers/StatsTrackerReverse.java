@@ -0,0 +1,98 @@
+package StatsTrackers;
+
+import Algorithms.DijkstraReverse;
+import Application.Settings;
+import DataProvider.DataProvider;
+import Database.DatabaseGraph;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+import Query.QueryGraph;
+import Transducer.TransducerGraph;
+import org.javatuples.Pair;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class StatsTrackerReverse implements StatsTracker {
+    QueryGraph queryGraph;
+    TransducerGraph transducerGraph;
+    DatabaseGraph databaseGraph;
+    ProductAutomatonConstructor productAutomatonConstructor;
+    HashMap<Pair<String, String>, Double> answerMap;
+
+    DijkstraReverse dijkstraReverse;
+    String target;
+    Double threshold;
+
+    String outputDirectory = Settings.outputFileDirectory;
+
+    public StatsTrackerReverse(DataProvider dataProvider, String target, Double threshold) {
+        this.queryGraph = dataProvider.getQueryGraph();
+        this.transducerGraph = dataProvider.getTransducerGraph();
+        this.databaseGraph = dataProvider.getDatabaseGraph();
+
+        this.target = target;
+        this.threshold = threshold;
+
+        // a path cheaper than the threshold only visits states that are closer than the threshold to an initial state,
+        // so the productAutomaton is only built up to the threshold (see ProductAutomatonConstructor.constructWithinBound()).
+        this.productAutomatonConstructor = new ProductAutomatonConstructor(queryGraph, transducerGraph, databaseGraph, threshold);
+        // the backward search walks the edges in reverse, it needs the complete productAutomaton.
+        this.productAutomatonConstructor.lazy = false;
+        this.dijkstraReverse = new DijkstraReverse(productAutomatonConstructor, threshold);
+        this.answerMap = new HashMap<>();
+    }
+
+    @Override
+    public void runDijkstra() throws FileNotFoundException {
+        StatsTrackerOutput.writeInputGraphs(outputDirectory, queryGraph, transducerGraph, databaseGraph);
+
+        // preprocessing
+        long startPreprocessing = System.nanoTime();
+        productAutomatonConstructor.construct();
+
+        // Dijkstra
+        long start = System.nanoTime();
+        answerMap = dijkstraReverse.processDijkstraFromTarget(target);
+
+        // postprocessing
+        long startPostProcessing = System.nanoTime();
+        answerMap = sortResults(answerMap);
+
+        StatsTrackerOutput.setTimes(startPreprocessing, start, startPostProcessing, System.nanoTime());
+        Settings.setNumberOfAnswers(answerMap.size());
+        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+    }
+
+    @Override
+    public void writeTimeToFile(long milli, long milliPreprocessing, long milliTotal) {
+        StatsTrackerOutput.writeTimeToFile(outputDirectory, productAutomatonConstructor.productAutomatonGraph.nodesById.size(),
+                milli, milliPreprocessing, milliTotal);
+    }
+
+    @Override
+    public void printEndResult() throws FileNotFoundException {
+        writeResultToFile();
+        StatsTrackerOutput.printAnswers(answerMap);
+    }
+
+    @Override
+    public void writeResultToFile() throws FileNotFoundException {
+        StatsTrackerOutput.writeAnswers(outputDirectory, "target " + target + ", threshold t = " + threshold, answerMap);
+        StatsTrackerOutput.writeProductAutomaton(outputDirectory, productAutomatonConstructor.productAutomatonGraph);
+    }
+
+    private HashMap<Pair<String, String>, Double> sortResults(HashMap<Pair<String, String>, Double> hm) {
+
+        return hm.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue())
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        Map.Entry::getValue,
+                        (e1, e2) -> e1, LinkedHashMap::new
+                ));
+    }
+}
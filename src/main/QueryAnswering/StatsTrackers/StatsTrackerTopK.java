@@ -96,7 +96,7 @@ public class StatsTrackerTopK implements StatsTracker {
         Settings.setPostprocessingTime(elapsedTimePostProcessing);
         Settings.setCombinedTime(elapsedTimeTotalProcessing);
         Settings.setNumberOfAnswers(answerMap.size());
-        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodes.size());
+        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
 
 
         // writeTimeToFile(elapsedTimeNanoDijkstra, elapsedTimeNanoPreprocessing, elapsedTimeTotalNano);
@@ -121,7 +121,7 @@ public class StatsTrackerTopK implements StatsTracker {
         float compTimeSecTotal = milliTotal / 1000F;
         float compTimeMinTotal = milliTotal / (60 * 1000F);
 
-        int amountOfNodes = productAutomatonConstructor.productAutomatonGraph.nodes.size();
+        int amountOfNodes = productAutomatonConstructor.productAutomatonGraph.nodesById.size();
 
         try {
 
@@ -191,12 +191,6 @@ public class StatsTrackerTopK implements StatsTracker {
             }
 
             out.write("total answers: " + answerMap.size() + "\n");
-            if (answerMap.size() > topK) {
-                int diff = answerMap.size() - topK;
-                out.write("The topK search is not fully optimized, as more results are found than needed. \n" +
-                        "This happens because we only 'locally optimized' (see wiki) the topK search. \n" +
-                        "We wanted to receive " + topK + " results but have gotten " + diff + " extra results. \n");
-            }
             out.close();
             System.out.println("successfully wrote to file.");
 
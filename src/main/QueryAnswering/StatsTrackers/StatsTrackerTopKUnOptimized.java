@@ -89,7 +89,7 @@ public class StatsTrackerTopKUnOptimized implements StatsTracker {
         Settings.setPostprocessingTime(elapsedTimePostProcessing);
         Settings.setCombinedTime(elapsedTimeTotalProcessing);
         Settings.setNumberOfAnswers(answerMap.size());
-        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodes.size());
+        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
 
 
 
@@ -119,7 +119,7 @@ public class StatsTrackerTopKUnOptimized implements StatsTracker {
         float compTimeSecTotal = milliTotal / 1000F;
         float compTimeMinTotal = milliTotal / (60 * 1000F);
 
-        int amountOfNodes = productAutomatonConstructor.productAutomatonGraph.nodes.size();
+        int amountOfNodes = productAutomatonConstructor.productAutomatonGraph.nodesById.size();
 
         try {
 
@@ -1,6 +1,5 @@
 package Query;
 
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -14,15 +13,24 @@ public class QueryGraph {
     }
 
     public void addQueryObjectNode(QueryNode... n) {
-        nodes.addAll(Arrays.asList(n));
+        for (QueryNode node : n) {
+            register(node);
+        }
+    }
+
+    // adds the node and hands out its index (the position in the order the nodes were added).
+    private void register(QueryNode node) {
+        if (nodes.add(node)) {
+            node.index = nodes.size() - 1;
+        }
     }
 
     public void addQueryObjectEdge(QueryNode source, QueryNode target, String label) {
 
         // .add on a hashSet does not add an element that is already present! We don't need to check whether the node is already created.
 
-        nodes.add(source);
-        nodes.add(target);
+        register(source);
+        register(target);
 
         // if this edge is already present -> don't add it.
 
@@ -11,6 +11,9 @@ public class QueryNode {
     Boolean finalState;
     public LinkedList<QueryEdge> edges;
 
+    // position of the node in its graph (assigned when the node is added). used to encode productAutomaton states as numbers.
+    public int index = -1;
+
     public QueryNode(){
 
     }
@@ -0,0 +1,86 @@
+package Transducer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// compiled form of a transducer with a single state (e.g. the auto-generated one or a plain "label rewrite" transducer).
+// every edge of such a transducer is a loop on its only state, so the state never changes and carries no information.
+// what is left is a table: incoming label -> [(outgoing label, cost)].
+public class RewriteTable {
+
+    // the only state of the transducer
+    public TransducerNode state;
+
+    // incoming label -> the cheapest edge per outgoing label
+    private HashMap<String, ArrayList<TransducerEdge>> rewrites;
+    // incoming label -> rewrites + epsilonRewrites (the edges that fit a query edge leaving a final query state)
+    private HashMap<String, ArrayList<TransducerEdge>> rewritesWithEpsilon;
+    // edges reading epsilon, the cheapest one per outgoing label
+    private ArrayList<TransducerEdge> epsilonRewrites;
+
+    private RewriteTable(TransducerNode state) {
+        this.state = state;
+        rewrites = new HashMap<>();
+        rewritesWithEpsilon = new HashMap<>();
+    }
+
+    /**
+     * compiles the transducer into a rewrite table.
+     * if there are several edges with the same incoming and outgoing label only the cheapest one is kept,
+     * all of them connect the same two states, so the others can never be part of a cheapest path.
+     *
+     * @param transducerGraph the transducer
+     * @return the rewrite table, null if the transducer does not have exactly one state
+     */
+    public static RewriteTable compile(TransducerGraph transducerGraph) {
+        if (transducerGraph.nodes.size() != 1) {
+            return null;
+        }
+        RewriteTable rewriteTable = new RewriteTable(transducerGraph.nodes.iterator().next());
+
+        // incoming label -> outgoing label -> cheapest edge. linked, so the order of the edges is kept.
+        LinkedHashMap<String, LinkedHashMap<String, TransducerEdge>> cheapestEdges = new LinkedHashMap<>();
+        for (TransducerEdge transducerEdge : rewriteTable.state.edges) {
+            String incoming = transducerEdge.incomingString.isBlank() ? "" : transducerEdge.incomingString;
+            String outgoing = transducerEdge.outgoingString.isBlank() ? "" : transducerEdge.outgoingString;
+            cheapestEdges.computeIfAbsent(incoming, k -> new LinkedHashMap<>())
+                    .merge(outgoing, transducerEdge, (a, b) -> b.cost < a.cost ? b : a);
+        }
+
+        LinkedHashMap<String, TransducerEdge> epsilonEdges = cheapestEdges.remove("");
+        rewriteTable.epsilonRewrites = epsilonEdges == null ? new ArrayList<>() : new ArrayList<>(epsilonEdges.values());
+
+        for (String incoming : cheapestEdges.keySet()) {
+            ArrayList<TransducerEdge> edges = new ArrayList<>(cheapestEdges.get(incoming).values());
+            ArrayList<TransducerEdge> edgesWithEpsilon = new ArrayList<>(edges);
+            edgesWithEpsilon.addAll(rewriteTable.epsilonRewrites);
+            rewriteTable.rewrites.put(incoming, edges);
+            rewriteTable.rewritesWithEpsilon.put(incoming, edgesWithEpsilon);
+        }
+        return rewriteTable;
+    }
+
+    /**
+     * @param incoming           the (lowercase) label of a query edge
+     * @param withEpsilonIncoming true if the edges reading epsilon should be added as well (the query edge leaves a final query state)
+     * @return the edges that fit the label. never copied, do not modify.
+     */
+    public Collection<TransducerEdge> getRewrites(String incoming, boolean withEpsilonIncoming) {
+        ArrayList<TransducerEdge> edges = withEpsilonIncoming ? rewritesWithEpsilon.get(incoming) : rewrites.get(incoming);
+        if (edges == null) {
+            return withEpsilonIncoming ? epsilonRewrites : Collections.emptyList();
+        }
+        return edges;
+    }
+
+    /**
+     * @return the edges reading epsilon, the cheapest one per outgoing label
+     */
+    public List<TransducerEdge> getEpsilonRewrites() {
+        return epsilonRewrites;
+    }
+}
@@ -1,7 +1,10 @@
 package Transducer;
 
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 
 // class for specifying the transducer in form of a graph. it consists of TransducerNodes and TransducerEdges.
@@ -10,17 +13,34 @@ public class TransducerGraph {
 
     public Set<TransducerNode> nodes;
 
+    // index over all edges: incomingString -> edges reading exactly this string.
+    // edges reading epsilon are additionally kept in their own list, since they can be applied at every final query state.
+    // both are filled while the edges are added, so the productAutomatonConstructor never has to scan the whole transducer.
+    private HashMap<String, LinkedList<TransducerEdge>> edgesByIncomingString;
+    private LinkedList<TransducerEdge> epsilonIncomingEdges;
+
     public TransducerGraph() {
         nodes = new HashSet<>();
+        edgesByIncomingString = new HashMap<>();
+        epsilonIncomingEdges = new LinkedList<>();
     }
 
     public void addTransducerObjectNode(TransducerNode... n) {
-        nodes.addAll(Arrays.asList(n));
+        for (TransducerNode node : n) {
+            register(node);
+        }
+    }
+
+    // adds the node and hands out its index (the position in the order the nodes were added).
+    private void register(TransducerNode node) {
+        if (nodes.add(node)) {
+            node.index = nodes.size() - 1;
+        }
     }
 
     public void addTransducerObjectEdge(TransducerNode source, TransducerNode target, String incoming, String outgoing, double cost) {
-        nodes.add(source);
-        nodes.add(target);
+        register(source);
+        register(target);
 
         // don't add duplicate edges!
 
@@ -33,8 +53,37 @@ public class TransducerGraph {
                 return;
             }
         }
-        source.edges.add(new TransducerEdge(source, target, incoming, outgoing, cost));
+        TransducerEdge transducerEdge = new TransducerEdge(source, target, incoming, outgoing, cost);
+        source.edges.add(transducerEdge);
+
+        // keep the label index up to date
+        edgesByIncomingString.computeIfAbsent(transducerEdge.incomingString, k -> new LinkedList<>()).add(transducerEdge);
+        if (transducerEdge.incomingString.isBlank()) {
+            epsilonIncomingEdges.add(transducerEdge);
+        }
+    }
+
+    /**
+     * returns all transducer edges whose incomingString equals the given label.
+     *
+     * @param incoming the (lowercase) label we want to read
+     * @return the matching edges, an empty list if there are none
+     */
+    public List<TransducerEdge> getEdgesWithIncomingString(String incoming) {
+        LinkedList<TransducerEdge> edges = edgesByIncomingString.get(incoming);
+        if (edges == null) {
+            return Collections.emptyList();
+        }
+        return edges;
+    }
 
+    /**
+     * returns all transducer edges that read epsilon (blank incomingString).
+     *
+     * @return the incoming epsilon edges
+     */
+    public List<TransducerEdge> getEpsilonIncomingEdges() {
+        return epsilonIncomingEdges;
     }
 
     // TODO: print isolated nodes. (same as in the query)
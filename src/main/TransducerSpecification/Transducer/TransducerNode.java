@@ -11,6 +11,9 @@ public class TransducerNode {
     Boolean finalState;
     public LinkedList<TransducerEdge> edges;
 
+    // position of the node in its graph (assigned when the node is added). used to encode productAutomaton states as numbers.
+    public int index = -1;
+
     public TransducerNode(String id, Boolean initialState, Boolean finalState) {
         identifier = id;
         this.initialState = initialState;
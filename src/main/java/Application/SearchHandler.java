@@ -1,9 +1,13 @@
 package Application;
 
+import Algorithms.SearchCursor;
 import StatsTrackers.*;
 import DataProvider.DataProvider;
+import ProductAutomatonSpecification.ProductAutomatonConstructor;
+import org.javatuples.Pair;
 
 import java.io.FileNotFoundException;
+import java.util.LinkedHashMap;
 
 public class SearchHandler {
 
@@ -32,6 +36,67 @@ public class SearchHandler {
         statsTrackerThreshold.runDijkstra();
     }
 
+    public void searchPointToPoint(DataProvider dataProvider, String source, String target) throws FileNotFoundException {
+        StatsTrackerPointToPoint statsTrackerPointToPoint = new StatsTrackerPointToPoint(dataProvider, source, target);
+        statsTrackerPointToPoint.runDijkstra();
+    }
+
+    public void searchReverse(DataProvider dataProvider, String target, double threshold) throws FileNotFoundException {
+        StatsTrackerReverse statsTrackerReverse = new StatsTrackerReverse(dataProvider, target, threshold);
+        statsTrackerReverse.runDijkstra();
+    }
+
+    /**
+     * opens a resumable query (see SearchCursor), e.g. for raising the threshold step by step or for paging through the top answers.
+     * the productAutomaton is built lazily, i.e. only as far as the cursor is advanced.
+     */
+    public SearchCursor openCursor(DataProvider dataProvider) {
+        return new SearchCursor(constructLazily(dataProvider));
+    }
+
+    /**
+     * cursor mode: pages through all answers with a cursor (see openCursor()), pageSize answers at a time, until it is exhausted.
+     * every page is printed as soon as the cursor hands it out.
+     */
+    public void searchWithCursor(DataProvider dataProvider, int pageSize) {
+        long startPreprocessing = System.nanoTime();
+        ProductAutomatonConstructor productAutomatonConstructor = constructLazily(dataProvider);
+        long start = System.nanoTime();
+        SearchCursor searchCursor = new SearchCursor(productAutomatonConstructor);
+
+        int numberOfAnswers = 0;
+        int numberOfPages = 0;
+        while (!searchCursor.isExhausted()) {
+            LinkedHashMap<Pair<String, String>, Double> page = searchCursor.nextAnswers(pageSize);
+            // the searches that were still open did not find another answer
+            if (page.isEmpty()) {
+                break;
+            }
+            numberOfPages++;
+            System.out.println("page " + numberOfPages + ":");
+            page.forEach((pair, cost) -> System.out.println("(" + pair.getValue0() + ", " + pair.getValue1() + ") with cost " + cost));
+            numberOfAnswers += page.size();
+        }
+        long end = System.nanoTime();
+        System.out.println("cursor exhausted after " + numberOfPages + " pages.");
+
+        Settings.setPreprocessingTime(start - startPreprocessing);
+        Settings.setDijkstraProcessingTime(end - start);
+        Settings.setPostprocessingTime(0);
+        Settings.setCombinedTime(end - startPreprocessing);
+        Settings.setNumberOfAnswers(numberOfAnswers);
+        Settings.setNumberOfActualNodes(productAutomatonConstructor.productAutomatonGraph.nodesById.size());
+    }
+
+    // the cursor only advances as far as it is asked to, so the productAutomaton is built lazily
+    private ProductAutomatonConstructor constructLazily(DataProvider dataProvider) {
+        ProductAutomatonConstructor productAutomatonConstructor = new ProductAutomatonConstructor(dataProvider.getQueryGraph(),
+                dataProvider.getTransducerGraph(), dataProvider.getDatabaseGraph());
+        productAutomatonConstructor.lazy = true;
+        productAutomatonConstructor.construct();
+        return productAutomatonConstructor;
+    }
+
     public void searchTopKAnswersUnOptimized(DataProvider dataProvider, int k) throws FileNotFoundException {
         StatsTrackerTopKUnOptimized statsTrackerTopKUnOptimized = new StatsTrackerTopKUnOptimized(dataProvider, k);
         statsTrackerTopKUnOptimized.runDijkstra();
@@ -1,6 +1,9 @@
 package Application;
 
+import Algorithms.QueueType;
+
 import java.math.BigInteger;
+import java.util.Set;
 
 public class Settings {
 
@@ -17,8 +20,7 @@ public class Settings {
      //public static String outputFileDirectory = "resources/output/"; // use this for building the .jar
     public static String outputFileDirectory = ""; // use this for building the .jar
 
-    public static int numberOfMaxNodesPossible;
-    public static long restrictionToPreventInfiniteRuns;
+    public static long numberOfMaxNodesPossible;
     public static int numberOfActualNodes;
     public static int maxIterationStepsInDijkstraLoop;
 
@@ -31,6 +33,33 @@ public class Settings {
 
     public static Double largestWeight;
 
+    // explore the product automaton on the fly instead of constructing it completely before the search
+    public static boolean lazyConstruction;
+
+    // construct the product automaton with several threads
+    public static boolean parallelConstruction;
+
+    // start every single-source search with the source only instead of queueing every node of the product automaton
+    public static boolean lazyInsertion;
+
+    // run the searches of the initial nodes on several threads
+    public static boolean parallelSearch;
+
+    // remove the states of the product automaton that cannot be part of any answer before the search
+    public static boolean pruneProduct;
+
+    // A*: the searches order their queue by distance + a lower bound of the remaining cost (see LowerBoundHeuristic)
+    public static boolean aStar;
+
+    // priority queue of the searches (heap, bucket queue or automatic choice)
+    public static QueueType queueType = QueueType.auto;
+
+    // identifiers of the database nodes the answers start in. null: every database node.
+    public static Set<String> sourceNodes;
+
+    // print every answer as soon as it is known instead of collecting all answers first (see AnswerListener)
+    public static boolean streamAnswers;
+
     public static long getPreprocessingTime() {
         return preprocessingTime;
     }
@@ -71,17 +100,12 @@ public class Settings {
         Settings.numberOfAnswers = numberOfAnswers;
     }
 
-    public static int getNumberOfMaxNodesPossible() {
+    public static long getNumberOfMaxNodesPossible() {
         return numberOfMaxNodesPossible;
     }
 
-    public static void setNumberOfMaxNodesPossible(int numberOfMaxNodesPossible) {
+    public static void setNumberOfMaxNodesPossible(long numberOfMaxNodesPossible) {
         Settings.numberOfMaxNodesPossible = numberOfMaxNodesPossible;
-        Settings.restrictionToPreventInfiniteRuns = (long) numberOfMaxNodesPossible * numberOfMaxNodesPossible * numberOfMaxNodesPossible;
-    }
-
-    public static long getRestrictionToPreventInfiniteRuns() {
-        return restrictionToPreventInfiniteRuns;
     }
 
     public static int getNumberOfActualNodes() {
@@ -107,4 +131,76 @@ public class Settings {
     public static void setMaxIterationStepsInDijkstraLoop(int maxIterationStepsInDijkstraLoop) {
         Settings.maxIterationStepsInDijkstraLoop = maxIterationStepsInDijkstraLoop;
     }
+
+    public static boolean isLazyConstruction() {
+        return lazyConstruction;
+    }
+
+    public static void setLazyConstruction(boolean lazyConstruction) {
+        Settings.lazyConstruction = lazyConstruction;
+    }
+
+    public static boolean isParallelConstruction() {
+        return parallelConstruction;
+    }
+
+    public static void setParallelConstruction(boolean parallelConstruction) {
+        Settings.parallelConstruction = parallelConstruction;
+    }
+
+    public static boolean isLazyInsertion() {
+        return lazyInsertion;
+    }
+
+    public static void setLazyInsertion(boolean lazyInsertion) {
+        Settings.lazyInsertion = lazyInsertion;
+    }
+
+    public static boolean isParallelSearch() {
+        return parallelSearch;
+    }
+
+    public static void setParallelSearch(boolean parallelSearch) {
+        Settings.parallelSearch = parallelSearch;
+    }
+
+    public static boolean isPruneProduct() {
+        return pruneProduct;
+    }
+
+    public static void setPruneProduct(boolean pruneProduct) {
+        Settings.pruneProduct = pruneProduct;
+    }
+
+    public static boolean isAStar() {
+        return aStar;
+    }
+
+    public static void setAStar(boolean aStar) {
+        Settings.aStar = aStar;
+    }
+
+    public static QueueType getQueueType() {
+        return queueType;
+    }
+
+    public static void setQueueType(QueueType queueType) {
+        Settings.queueType = queueType;
+    }
+
+    public static boolean isStreamAnswers() {
+        return streamAnswers;
+    }
+
+    public static void setStreamAnswers(boolean streamAnswers) {
+        Settings.streamAnswers = streamAnswers;
+    }
+
+    public static Set<String> getSourceNodes() {
+        return sourceNodes;
+    }
+
+    public static void setSourceNodes(Set<String> sourceNodes) {
+        Settings.sourceNodes = sourceNodes;
+    }
 }
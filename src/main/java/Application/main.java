@@ -1,8 +1,11 @@
 package Application;
 
+import Algorithms.QueueType;
 import DataProvider.DataProvider;
 import DataProvider.DataReader;
 
+import java.util.HashSet;
+
 class main {
 
     /**
@@ -28,6 +31,65 @@ class main {
             userChoiceParameter = "0";
         }
 
+        // optional settings after the parameter
+        for (int i = 4; i < args.length; i++) {
+            switch (args[i]) {
+                case "lazy":
+                    Settings.setLazyConstruction(true);
+                    break;
+                case "parallel":
+                    Settings.setParallelConstruction(true);
+                    break;
+                case "lazyInsertion":
+                    Settings.setLazyInsertion(true);
+                    break;
+                case "parallelSearch":
+                    Settings.setParallelSearch(true);
+                    break;
+                case "prune":
+                    Settings.setPruneProduct(true);
+                    break;
+                case "aStar":
+                    Settings.setAStar(true);
+                    break;
+                case "stream":
+                    Settings.setStreamAnswers(true);
+                    break;
+                case "queue=heap":
+                    Settings.setQueueType(QueueType.heap);
+                    break;
+                case "queue=bucket":
+                    Settings.setQueueType(QueueType.bucket);
+                    break;
+                case "queue=zeroOne":
+                    Settings.setQueueType(QueueType.zeroOne);
+                    break;
+                case "queue=auto":
+                    Settings.setQueueType(QueueType.auto);
+                    break;
+                default:
+                    // sources=d1,d2,...: only the answers that start in one of these database nodes
+                    if (args[i].startsWith("sources=")) {
+                        HashSet<String> sourceNodes = new HashSet<>();
+                        for (String source : args[i].substring("sources=".length()).split(",", -1)) {
+                            if (source.trim().isEmpty()) {
+                                System.out.println("sources needs a list of database nodes d1,d2,... without empty entries. Check ReadMe for more info.");
+                                return;
+                            }
+                            sourceNodes.add(source.trim());
+                        }
+                        Settings.setSourceNodes(sourceNodes);
+                    } else System.out.println("unknown option: " + args[i]);
+                    break;
+            }
+        }
+
+        // streaming is only implemented for classic and threshold, the other modes would silently collect their answers anyway
+        if (Settings.isStreamAnswers() && !userChoiceComputationMode.equals("classic") && !userChoiceComputationMode.equals("threshold")) {
+            System.out.println("the option stream is only supported in the modes classic and threshold. Check ReadMe for more info.");
+            return;
+        }
+
         DataReader dataReader;
         SearchHandler searchHandler;
 
@@ -75,6 +137,37 @@ class main {
                 System.out.println("thresholdUO mode");
                 searchHandler.searchThresholdAnswersUnOptimized(dataProvider, Double.parseDouble(userChoiceParameter));
                 break;
+            case "pointToPoint":
+                System.out.println("pointToPoint mode");
+                // parameter: source,target (identifiers of two database nodes)
+                String[] sourceAndTarget = userChoiceParameter.split(",");
+                if (sourceAndTarget.length != 2) {
+                    System.out.println("pointToPoint needs the parameter source,target. Check ReadMe for more info.");
+                    break;
+                }
+                searchHandler.searchPointToPoint(dataProvider, sourceAndTarget[0].trim(), sourceAndTarget[1].trim());
+                break;
+            case "reverse":
+                System.out.println("reverse mode");
+                // parameter: target or target,threshold (identifier of a database node)
+                String[] targetAndThreshold = userChoiceParameter.split(",");
+                if (targetAndThreshold.length > 2) {
+                    System.out.println("reverse needs the parameter target or target,threshold. Check ReadMe for more info.");
+                    break;
+                }
+                double reverseThreshold = targetAndThreshold.length == 2 ? Double.parseDouble(targetAndThreshold[1].trim()) : Double.POSITIVE_INFINITY;
+                searchHandler.searchReverse(dataProvider, targetAndThreshold[0].trim(), reverseThreshold);
+                break;
+            case "cursor":
+                System.out.println("cursor mode");
+                // parameter: the page size, the answers are pulled page by page until there are no more
+                int pageSize = Integer.parseInt(userChoiceParameter);
+                if (pageSize < 1) {
+                    System.out.println("cursor needs a page size of at least 1. Check ReadMe for more info.");
+                    break;
+                }
+                searchHandler.searchWithCursor(dataProvider, pageSize);
+                break;
             case "thresholdLW":
                 System.out.println("thresholdLW mode");
                 searchHandler.searchLargestWeight(dataProvider);
@@ -84,11 +177,6 @@ class main {
                 break;
         }
 
-        boolean possibleInfiniteRun = Settings.getMaxIterationStepsInDijkstraLoop() == Settings.getRestrictionToPreventInfiniteRuns();
-        //System.out.println("max iteration steps: " + Settings.getMaxIterationStepsInDijkstraLoop());
-        //System.out.println("number of max nodes possible: " + Settings.getNumberOfMaxNodesPossible());
-        //System.out.println("possible inf run: " + possibleInfiniteRun);
-
         if (!userChoiceComputationMode.equals("thresholdLW")) {
             String sb = Settings.getPreprocessingTime() + " " +
                     Settings.getDijkstraProcessingTime() + " " +
@@ -96,8 +184,7 @@ class main {
                     Settings.getCombinedTime() + " " +
                     Settings.getNumberOfMaxNodesPossible() + " " +
                     Settings.getNumberOfActualNodes() + " " +
-                    Settings.getNumberOfAnswers() + " " +
-                    possibleInfiniteRun;
+                    Settings.getNumberOfAnswers();
             System.out.print(sb);
         } else System.out.print(Settings.getLargestWeight());
     }